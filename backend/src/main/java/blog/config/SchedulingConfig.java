@@ -0,0 +1,10 @@
+package blog.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// background jobs (e.g. folding post counter shards)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,8 +2,7 @@
 package blog.controller;
 
 import blog.dto.CategoryDto;
-import blog.models.Category;
-import blog.repository.CategoryRepository;
+import blog.service.CategoryCatalog;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -12,16 +11,14 @@ import java.util.List;
 @RequestMapping("/api/categories")
 public class CategoryController {
 
-  private final CategoryRepository categories;
+  private final CategoryCatalog categories;
 
-  public CategoryController(CategoryRepository categories) {
+  public CategoryController(CategoryCatalog categories) {
     this.categories = categories;
   }
 
   @GetMapping
   public List<CategoryDto> list() {
-    return categories.findAll().stream()
-        .map(c -> new CategoryDto(c.getId(), c.getName(), c.getSlug()))
-        .toList();
+    return categories.all();
   }
 }
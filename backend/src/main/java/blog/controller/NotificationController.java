@@ -1,24 +1,22 @@
 package blog.controller;
 
-import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import blog.dto.CursorPageDto;
 import blog.dto.NotificationDto;
-import blog.repository.NotificationRepository;
-import blog.repository.UnseenNotificationRepository;
 import blog.repository.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import blog.service.NotificationService;
 import org.springframework.security.core.Authentication;
 
-import blog.models.Notification;
-import blog.models.UnseenNotification;
 import blog.models.User;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -29,9 +27,21 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class NotificationController {
 
-    private final NotificationRepository notificationRepo;
-    private final UnseenNotificationRepository unseenRepo;
     private final UserRepository users;
+    private final NotificationService notificationService;
+
+    // polled by the client for the badge; answered from memory once the count is loaded
+    @GetMapping("/unseen-count")
+    public Map<String, Long> getUnseenCount(Authentication auth) {
+        if (auth == null || auth.getName() == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
+
+        User me = users.findByUsername(auth.getName())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+
+        return Map.of("count", notificationService.unseenCount(me));
+    }
 
     @GetMapping
     public List<NotificationDto> getMyNotifications(
@@ -39,29 +49,19 @@ public class NotificationController {
         User me = users.findByUsername(auth.getName())
                 .orElseThrow();
 
-        return notificationRepo.findByUser(me.getId())
-                .stream()
-                .<NotificationDto>map(n -> {
-                 boolean seen = !unseenRepo.existsByNotification_Id(n.getId());
-
-
-                    String actorUsername = null;
-                    if (n.getPayload() != null) {
-                        Object usernameObj = n.getPayload().get("actorUsername");
-                        if (usernameObj != null) {
-                            actorUsername = usernameObj.toString();
-                        }
-                    }
-
-                    return new NotificationDto(
-                            n.getId(),
-                            n.getType(),
-                            actorUsername,
-                            n.getPost() != null ? n.getPost().getId() : null,
-                           n.getCreatedAt().atZone(ZoneOffset.UTC).toInstant(),
-                            seen);
-                })
-                .toList();
+        return notificationService.getAll(me);
+    }
+
+    // newest first; pass an empty cursor for the first page
+    @GetMapping(params = "cursor")
+    public CursorPageDto<NotificationDto> getMyNotificationsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication auth) {
+        User me = users.findByUsername(auth.getName())
+                .orElseThrow();
+
+        return notificationService.getPage(me, cursor, limit);
     }
 
 @PostMapping("/{id}/seen")
@@ -73,10 +73,7 @@ public void markSeen(@PathVariable UUID id, Authentication auth) {
     User me = users.findByUsername(auth.getName())
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
-    UnseenNotification unseen = unseenRepo.findByNotification_IdAndUser_Id(id, me.getId())
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Notification not found or already seen"));
-
-    unseenRepo.delete(unseen);
+    notificationService.markSeen(me, id);
 }
 
 
@@ -89,17 +86,7 @@ public void markUnseen(@PathVariable UUID id, Authentication auth) {
   User me = users.findByUsername(auth.getName())
     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
-  // Check if notification exists for user
-  Notification notif = notificationRepo.findById(id)
-    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Notification not found"));
-
-  if (!notif.getTargetUser().getId().equals(me.getId())) {
-    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not your notification");
-  }
-
-  // Delete existing unseen if any, then create new
-  unseenRepo.deleteByNotification_IdAndUser_Id(id, me.getId());
-  unseenRepo.save(new UnseenNotification(me, notif));
+  notificationService.markUnseen(me, id);
 }
 
 
@@ -1,8 +1,12 @@
 package blog.controller;
 
 import blog.dto.CommentDto;
+import blog.dto.CommentThreadDto;
 import blog.dto.CreateCommentRequest;
+import blog.dto.CursorPageDto;
 import blog.dto.PostDetailDto;
+import blog.dto.PostPageDto;
+import blog.dto.PostSummaryDto;
 import blog.models.User;
 import blog.repository.UserRepository;
 import blog.service.posts.*;
@@ -26,6 +30,7 @@ public class PostController {
   private final PostLikeService likeService;
   private final PostSaveService saveService;
   private final PostCommentService commentService;
+  private final PostPageService pageService;
   private final UserRepository userRepository;
 
   public PostController(
@@ -35,6 +40,7 @@ public class PostController {
       PostLikeService likeService,
       PostSaveService saveService,
       PostCommentService commentService,
+      PostPageService pageService,
       UserRepository userRepository) {
     this.feedService = feedService;
     this.readService = readService;
@@ -42,6 +48,7 @@ public class PostController {
     this.likeService = likeService;
     this.saveService = saveService;
     this.commentService = commentService;
+    this.pageService = pageService;
     this.userRepository = userRepository;
   }
 
@@ -61,6 +68,45 @@ public class PostController {
     return feedService.getFeedForUser(requireUsername(authentication), categoryId, sort);
   }
 
+  // Paginated feed: first page with an empty cursor, then pass back nextCursor
+  @GetMapping(value = "/feed", params = "cursor")
+  public CursorPageDto<PostDetailDto> getFeedPage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit,
+      @RequestParam(required = false) UUID categoryId,
+      @RequestParam(defaultValue = "new") String sort,
+      Authentication authentication) {
+    return feedService.getFeedPage(requireUsername(authentication), categoryId, sort, cursor, limit);
+  }
+
+  // Same page as list cards (excerpt + first media) instead of full posts
+  @GetMapping(value = "/feed", params = { "cursor", "view=summary" })
+  public CursorPageDto<PostSummaryDto> getFeedSummaryPage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit,
+      @RequestParam(required = false) UUID categoryId,
+      @RequestParam(defaultValue = "new") String sort,
+      Authentication authentication) {
+    return feedService.getFeedSummaryPage(requireUsername(authentication), categoryId, sort, cursor, limit);
+  }
+
+  // Every active post, newest first; for readers who follow nobody yet
+  @GetMapping("/explore")
+  public CursorPageDto<PostDetailDto> getExplorePage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit,
+      Authentication authentication) {
+    return feedService.getExplorePage(currentUserId(authentication), cursor, limit);
+  }
+
+  @GetMapping(value = "/explore", params = "view=summary")
+  public CursorPageDto<PostSummaryDto> getExploreSummaryPage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit,
+      Authentication authentication) {
+    return feedService.getExploreSummaryPage(currentUserId(authentication), cursor, limit);
+  }
+
   @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
   public PostDetailDto create(
       @RequestParam("title") String title,
@@ -148,8 +194,27 @@ public class PostController {
   }
 
   @GetMapping("/user/{userId}/posts")
-  public List<PostDetailDto> getUserPosts(@PathVariable UUID userId) {
-    return readService.getPostsByAuthor(userId);
+  public List<PostDetailDto> getUserPosts(@PathVariable UUID userId, Authentication authentication) {
+    return readService.getPostsByAuthor(userId, currentUserId(authentication));
+  }
+
+  // profile posts, newest first, with the viewer's liked / saved flags
+  @GetMapping(value = "/user/{userId}/posts", params = "cursor")
+  public CursorPageDto<PostDetailDto> getUserPostsPage(
+      @PathVariable UUID userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit,
+      Authentication authentication) {
+    return readService.getPostsByAuthorPage(userId, currentUserId(authentication), cursor, limit);
+  }
+
+  @GetMapping(value = "/user/{userId}/posts", params = { "cursor", "view=summary" })
+  public CursorPageDto<PostSummaryDto> getUserPostSummariesPage(
+      @PathVariable UUID userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit,
+      Authentication authentication) {
+    return readService.getPostSummariesByAuthorPage(userId, currentUserId(authentication), cursor, limit);
   }
 
   @GetMapping("/user/{userId}/liked")
@@ -162,6 +227,54 @@ public class PostController {
     return readService.getSavedPostsForUser(userId);
   }
 
+  @GetMapping(value = "/user/{userId}/posts", params = "view=summary")
+  public List<PostSummaryDto> getUserPostSummaries(@PathVariable UUID userId, Authentication authentication) {
+    return readService.getPostSummariesByAuthor(userId, currentUserId(authentication));
+  }
+
+  @GetMapping(value = "/user/{userId}/liked", params = "view=summary")
+  public List<PostSummaryDto> getUserLikedPostSummaries(@PathVariable UUID userId) {
+    return readService.getLikedPostSummariesForUser(userId);
+  }
+
+  @GetMapping(value = "/user/{userId}/saved", params = "view=summary")
+  public List<PostSummaryDto> getUserSavedPostSummaries(@PathVariable UUID userId) {
+    return readService.getSavedPostSummariesForUser(userId);
+  }
+
+  // cursor pages of the lists above, newest like / save first
+  @GetMapping(value = "/user/{userId}/liked", params = "cursor")
+  public CursorPageDto<PostDetailDto> getUserLikedPostsPage(
+      @PathVariable UUID userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit) {
+    return readService.getLikedPostsPage(userId, cursor, limit);
+  }
+
+  @GetMapping(value = "/user/{userId}/saved", params = "cursor")
+  public CursorPageDto<PostDetailDto> getUserSavedPostsPage(
+      @PathVariable UUID userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit) {
+    return readService.getSavedPostsPage(userId, cursor, limit);
+  }
+
+  @GetMapping(value = "/user/{userId}/liked", params = { "cursor", "view=summary" })
+  public CursorPageDto<PostSummaryDto> getUserLikedPostSummariesPage(
+      @PathVariable UUID userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit) {
+    return readService.getLikedPostSummariesPage(userId, cursor, limit);
+  }
+
+  @GetMapping(value = "/user/{userId}/saved", params = { "cursor", "view=summary" })
+  public CursorPageDto<PostSummaryDto> getUserSavedPostSummariesPage(
+      @PathVariable UUID userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit) {
+    return readService.getSavedPostSummariesPage(userId, cursor, limit);
+  }
+
   @PostMapping("/{postId}/comments")
   @ResponseStatus(HttpStatus.CREATED)
   public CommentDto addComment(
@@ -171,7 +284,8 @@ public class PostController {
     return commentService.addComment(
         requireUsername(authentication),
         postId,
-        req.content());
+        req.content(),
+        req.parentId());
   }
 
   @GetMapping("/{postId}/comments")
@@ -179,6 +293,37 @@ public class PostController {
     return commentService.getComments(postId);
   }
 
+  // Paginated thread: order=newest (default) or oldest; pass back nextCursor
+  @GetMapping(value = "/{postId}/comments", params = "cursor")
+  public CursorPageDto<CommentDto> getCommentsPage(
+      @PathVariable UUID postId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit,
+      @RequestParam(defaultValue = "newest") String order) {
+    return commentService.getCommentsPage(postId, order, cursor, limit);
+  }
+
+  // Threaded view: top-level comments with their first `replies` replies and a cursor for the rest
+  @GetMapping("/{postId}/comments/thread")
+  public CursorPageDto<CommentThreadDto> getCommentThreadPage(
+      @PathVariable UUID postId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit,
+      @RequestParam(defaultValue = "newest") String order,
+      @RequestParam(defaultValue = "3") int replies) {
+    return commentService.getThreadPage(postId, order, cursor, limit, replies);
+  }
+
+  // "load more replies" of one comment, oldest first
+  @GetMapping("/{postId}/comments/{commentId}/replies")
+  public CursorPageDto<CommentDto> getCommentReplies(
+      @PathVariable UUID postId,
+      @PathVariable UUID commentId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit) {
+    return commentService.getRepliesPage(postId, commentId, cursor, limit);
+  }
+
   @DeleteMapping("/{postId}/comments/{commentId}")
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void deleteComment(@PathVariable UUID postId, @PathVariable UUID commentId, Authentication authentication) {
@@ -188,16 +333,21 @@ public class PostController {
   // Detail (anonymous allowed)
   @GetMapping("/{id}")
   public PostDetailDto getOne(@PathVariable UUID id, Authentication authentication) {
-    UUID currentUserId = null;
+    return readService.getOne(id, currentUserId(authentication));
+  }
 
-    if (authentication != null && authentication.isAuthenticated()
-        && !"anonymousUser".equals(authentication.getName())) {
-      User user = userRepository.findByUsername(authentication.getName()).orElse(null);
-      if (user != null)
-        currentUserId = user.getId();
-    }
+  // Detail + first comment threads + author card in one round trip
+  @GetMapping("/{id}/page")
+  public PostPageDto getPage(@PathVariable UUID id, Authentication authentication) {
+    return pageService.getPage(id, authentication);
+  }
 
-    return readService.getOne(id, currentUserId);
+  // null for anonymous requests
+  private UUID currentUserId(Authentication authentication) {
+    if (authentication == null || !authentication.isAuthenticated()
+        || "anonymousUser".equals(authentication.getName()))
+      return null;
+    return userRepository.findByUsername(authentication.getName()).map(User::getId).orElse(null);
   }
 
 }
@@ -4,6 +4,9 @@ package blog.controller.admin;
 import blog.repository.CommentRepository;
 import blog.repository.PostRepository;
 import blog.repository.ReportRepository;
+import blog.models.Post;
+import blog.service.posts.AuthorRecentPosts;
+import blog.service.posts.ExploreSnapshot;
 import blog.service.posts.PostAdminService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.*;
@@ -25,11 +28,13 @@ public class AdminPostsController {
   private final CommentRepository commentRepo;
   private final ReportRepository reportRepo;
   private final PostAdminService postAdminService;
+  private final AuthorRecentPosts recentPosts;
+  private final ExploreSnapshot explore;
 
   @DeleteMapping("/{postId}")
   @Transactional
   public ResponseEntity<Void> deletePost(@PathVariable UUID postId) {
-    postRepo.findById(postId)
+    Post post = postRepo.findById(postId)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
 
     // delete related content
@@ -37,6 +42,8 @@ public class AdminPostsController {
     reportRepo.deleteByReportedPostId(postId);
 
     postRepo.deleteById(postId);
+    recentPosts.onRemoved(post.getAuthor().getId(), postId);
+    explore.onRemoved(postId);
     return ResponseEntity.noContent().build();
   }
 
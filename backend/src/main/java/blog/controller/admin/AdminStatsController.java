@@ -33,6 +33,16 @@ public class AdminStatsController {
     return ResponseEntity.ok(service.getReportCategoryStats());
   }
 
+  @GetMapping("/caches")
+  public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+    return ResponseEntity.ok(service.getCacheStats());
+  }
+
+  @GetMapping("/notifications")
+  public ResponseEntity<List<NotificationQueueStatsDto>> getNotificationQueueStats() {
+    return ResponseEntity.ok(service.getNotificationQueueStats());
+  }
+
   @GetMapping("/top-contributors")
   public ResponseEntity<List<TopContributorDto>> getTopContributors(@RequestParam(defaultValue = "10") int limit) {
     return ResponseEntity.ok(service.getTopContributors(limit));
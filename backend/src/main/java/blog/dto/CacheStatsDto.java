@@ -0,0 +1,10 @@
+package blog.dto;
+
+public record CacheStatsDto(
+    String name,
+    int size,
+    long hits,
+    long misses,
+    long loads,
+    long evictions
+) {}
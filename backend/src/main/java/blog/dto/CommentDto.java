@@ -9,5 +9,8 @@ public record CommentDto(
         String username,
         String avatarUrl,
         String text,
-        String createdAt) {
+        String createdAt,
+        UUID parentId, // null for top-level comments
+        int depth,
+        int repliesCount) {
 }
@@ -0,0 +1,10 @@
+package blog.dto;
+
+import java.util.List;
+
+// a comment with the first few of its direct replies (oldest first)
+public record CommentThreadDto(
+    CommentDto comment,
+    List<CommentDto> replies,
+    String moreRepliesCursor // null when every direct reply is already in replies
+) {}
@@ -4,8 +4,12 @@ package blog.dto;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.util.UUID;
+
 public record CreateCommentRequest(
     @NotBlank(message = "Comment cannot be empty")
     @Size(max = 2000, message = "Comment too long (max 2000)")
-    String content
+    String content,
+
+    UUID parentId // optional: the comment being replied to
 ) {}
@@ -0,0 +1,8 @@
+package blog.dto;
+
+import java.util.List;
+
+public record CursorPageDto<T>(
+    List<T> items,
+    String nextCursor // null when there is nothing after this page
+) {}
@@ -0,0 +1,13 @@
+package blog.dto;
+
+// a notification queue's backlog and delivery counters since startup
+public record NotificationQueueStatsDto(
+    String name,
+    long depth, // events / jobs waiting
+    long lagMs, // age of the oldest one
+    int workers,
+    long delivered, // notifications written
+    long batches,
+    long retried,
+    long dropped
+) {}
@@ -0,0 +1,8 @@
+package blog.dto;
+
+// everything the post screen shows on open: detail, first comment threads, author card
+public record PostPageDto(
+    PostDetailDto post,
+    CursorPageDto<CommentThreadDto> comments,
+    UserProfileDto author
+) {}
@@ -0,0 +1,23 @@
+package blog.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// List-view card: body cut to an excerpt, first media item only
+public record PostSummaryDto(
+    UUID id,
+    String title,
+    String excerpt,
+    boolean truncated,
+    String authorName,
+    String authorUsername,
+    UUID authorId,
+    String avatarUrl,
+    int likes,
+    int comments,
+    Instant createdAt,
+    String thumbnailUrl,
+    String thumbnailType,
+    boolean isLiked,
+    boolean isSaved) {
+}
@@ -0,0 +1,13 @@
+package blog.enums;
+
+public enum CommentOrder {
+    NEWEST,
+    OLDEST;
+
+    // unknown / missing values keep the old behaviour: newest first
+    public static CommentOrder parse(String value) {
+        if ("oldest".equalsIgnoreCase(value))
+            return OLDEST;
+        return NEWEST;
+    }
+}
@@ -0,0 +1,32 @@
+package blog.enums;
+
+import blog.models.Post;
+
+public enum FeedSort {
+    NEW,
+    LIKES,
+    SAVED;
+
+    // unknown / missing values keep the old behaviour: newest first
+    public static FeedSort parse(String value) {
+        if ("likes".equalsIgnoreCase(value))
+            return LIKES;
+        if ("saved".equalsIgnoreCase(value))
+            return SAVED;
+        return NEW;
+    }
+
+    // leading keyset column for this order (unused for NEW)
+    public long score(Integer likesCount, Integer savesCount) {
+        Integer value = switch (this) {
+            case LIKES -> likesCount;
+            case SAVED -> savesCount;
+            case NEW -> 0;
+        };
+        return value != null ? value : 0;
+    }
+
+    public long score(Post p) {
+        return score(p.getLikesCount(), p.getSavesCount());
+    }
+}
@@ -1,10 +1,9 @@
 package blog.mapper;
 
 import blog.dto.*;
-import blog.models.Media;
 import blog.models.Post;
-import blog.repository.MediaRepository;
 import blog.repository.PostMediaRepository;
+import blog.service.MediaCache;
 
 import java.util.List;
 import java.util.Objects;
@@ -13,33 +12,27 @@ public class PostMapper {
 
   public static PostDetailDto toDetail(
       Post p,
-      MediaRepository mediaRepo,
+      MediaCache mediaCache,
       PostMediaRepository postMediaRepo,
       List<CategoryDto> categories,
       boolean isLiked,
       boolean isSaved
   ) {
 
-    String avatarUrl = null;
-    if (p.getAuthor() != null && p.getAuthor().getAvatarMediaId() != null) {
-      avatarUrl = mediaRepo
-          .findById(p.getAuthor().getAvatarMediaId())
-          .map(Media::getUrl)
-          .orElse(null);
-    }
+    String avatarUrl = p.getAuthor() != null ? mediaCache.url(p.getAuthor().getAvatarMediaId()) : null;
 
     var media = postMediaRepo
         .findByPostIdOrderByPositionAsc(p.getId())
         .stream()
         .map(link -> {
-          Media m = mediaRepo.findById(link.getMediaId()).orElse(null);
+          MediaCache.MediaRef m = mediaCache.get(link.getMediaId()).orElse(null);
           if (m == null) return null;
 
           return new PostMediaDto(
               link.getId(),
-              m.getId(),
-              m.getUrl(),
-              m.getMediaType(),
+              m.id(),
+              m.url(),
+              m.mediaType(),
               link.getDescription(),
               link.getPosition()
           );
@@ -47,6 +40,21 @@ public class PostMapper {
         .filter(Objects::nonNull)
         .toList();
 
+    return toDetail(p, avatarUrl, media, categories, count(p.getLikesCount()), count(p.getCommentsCount()),
+        isLiked, isSaved);
+  }
+
+  // everything already resolved by the caller (see PostAssembler.toDetails)
+  public static PostDetailDto toDetail(
+      Post p,
+      String avatarUrl,
+      List<PostMediaDto> media,
+      List<CategoryDto> categories,
+      int likes,
+      int comments,
+      boolean isLiked,
+      boolean isSaved
+  ) {
     return new PostDetailDto(
         p.getId(),
         p.getTitle(),
@@ -55,8 +63,8 @@ public class PostMapper {
         p.getAuthor() != null ? p.getAuthor().getUsername() : null,
         p.getAuthor() != null ? p.getAuthor().getId() : null,
         avatarUrl,
-        p.getLikesCount() != null ? p.getLikesCount() : 0,
-        p.getCommentsCount() != null ? p.getCommentsCount() : 0,
+        likes,
+        comments,
         p.getCreatedAt(),
         p.getStatus(),     
         media,
@@ -65,4 +73,8 @@ public class PostMapper {
         isSaved
     );
   }
+
+  private static int count(Integer value) {
+    return value != null ? value : 0;
+  }
 }
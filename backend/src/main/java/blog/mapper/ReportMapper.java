@@ -2,12 +2,11 @@ package blog.mapper;
 
 
 import blog.dto.ReportDto;
-import blog.models.Media;
 import blog.models.Report;
 import blog.models.User;
-import blog.repository.MediaRepository;
 import blog.repository.PostRepository;
 import blog.repository.UserRepository;
+import blog.service.MediaCache;
 import lombok.RequiredArgsConstructor;
 
 import java.time.ZoneOffset;
@@ -19,7 +18,7 @@ import org.springframework.stereotype.Component;
 public class ReportMapper {
 
   private final UserRepository users;
-  private final MediaRepository mediaRepo;
+  private final MediaCache mediaCache;
   private final PostRepository posts;
 
   public ReportDto toDto(Report r) {
@@ -58,6 +57,6 @@ public class ReportMapper {
 
   private String avatarUrl(User u) {
     if (u == null || u.getAvatarMediaId() == null) return null;
-    return mediaRepo.findById(u.getAvatarMediaId()).map(Media::getUrl).orElse(null);
+    return mediaCache.url(u.getAvatarMediaId());
   }
 }
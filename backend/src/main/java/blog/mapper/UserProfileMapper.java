@@ -1,10 +1,9 @@
 package blog.mapper;
 
 import blog.dto.UserProfileDto;
-import blog.models.Media;
 import blog.models.User;
-import blog.repository.MediaRepository;
 import blog.repository.SubscriptionRepository;
+import blog.service.MediaCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -13,18 +12,26 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class UserProfileMapper {
 
-  private final MediaRepository mediaRepo;
+  private final MediaCache mediaCache;
   private final SubscriptionRepository subscriptions;
 
   public UserProfileDto toProfileDto(User user, boolean isSubscribed) {
-    String avatarUrl = null;
-    if (user.getAvatarMediaId() != null) {
-      avatarUrl = mediaRepo.findById(user.getAvatarMediaId()).map(Media::getUrl).orElse(null);
-    }
+    String avatarUrl = mediaCache.url(user.getAvatarMediaId());
 
     int followers = (int) subscriptions.countBySubscribedToId(user.getId());
     int following = (int) subscriptions.countBySubscriberId(user.getId());
 
+    return toProfileDto(user, avatarUrl, followers, following, isSubscribed);
+  }
+
+  // counts already loaded (SubscriptionRepository.findStats)
+  public UserProfileDto toProfileDto(User user, SubscriptionRepository.SubscriptionStats stats, boolean isSubscribed) {
+    return toProfileDto(user, mediaCache.url(user.getAvatarMediaId()),
+        (int) stats.getFollowers(), (int) stats.getFollowing(), isSubscribed);
+  }
+
+  private UserProfileDto toProfileDto(User user, String avatarUrl, int followers, int following,
+      boolean isSubscribed) {
     return new UserProfileDto(
         user.getId(),
         user.getUsername(),
@@ -1,10 +1,12 @@
 package blog.models;
 
+import blog.service.CategoryChangeListener;
 import jakarta.persistence.*;
 import java.util.UUID;
 import lombok.*;  
 @Entity
 @Table(name = "categories")
+@EntityListeners(CategoryChangeListener.class)
 public class Category {
 
   @Id
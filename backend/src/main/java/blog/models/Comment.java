@@ -6,7 +6,7 @@ import java.util.UUID;
 import lombok.*;
 @Entity
 @Table(name = "comments", indexes = {
-  @Index(name = "idx_comments_post_created", columnList = "post_id, created_at DESC")
+  @Index(name = "idx_comments_post_created", columnList = "post_id, created_at DESC, id DESC")
 })
 public class Comment {
   @Id
@@ -23,6 +23,16 @@ public class Comment {
   @Column(name = "text", nullable = false, columnDefinition = "text")
   private String text;
 
+  // null for top-level comments
+  @Column(name = "parent_id", columnDefinition = "uuid")
+  private UUID parentId;
+
+  @Column(name = "depth", nullable = false)
+  private short depth;
+
+  @Column(name = "replies_count", nullable = false)
+  private int repliesCount;
+
   @Column(name = "created_at", nullable = false)
   private LocalDateTime createdAt;
 
@@ -44,6 +54,15 @@ public class Comment {
   public String getText() { return text; }
   public void setText(String text) { this.text = text; }
 
+  public UUID getParentId() { return parentId; }
+  public void setParentId(UUID parentId) { this.parentId = parentId; }
+
+  public short getDepth() { return depth; }
+  public void setDepth(short depth) { this.depth = depth; }
+
+  public int getRepliesCount() { return repliesCount; }
+  public void setRepliesCount(int repliesCount) { this.repliesCount = repliesCount; }
+
   public LocalDateTime getCreatedAt() { return createdAt; }
   public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
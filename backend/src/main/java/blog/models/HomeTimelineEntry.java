@@ -0,0 +1,38 @@
+package blog.models;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+// Read-only view of the home_timeline inbox; rows are written by HomeTimelineRepository.
+@Entity
+@Immutable
+@Table(name = "home_timeline")
+@IdClass(HomeTimelineEntry.Key.class)
+@Getter
+public class HomeTimelineEntry {
+
+  @Id
+  @Column(name = "user_id", columnDefinition = "uuid")
+  private UUID userId;
+
+  @Id
+  @Column(name = "post_id", columnDefinition = "uuid")
+  private UUID postId;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  public static class Key implements Serializable {
+    private UUID userId;
+    private UUID postId;
+  }
+}
@@ -1,6 +1,7 @@
 package blog.models;
 
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.util.UUID;
 import lombok.*;
 @Entity
@@ -17,7 +18,13 @@ public class Like {
   @Column(name = "post_id", nullable = false, columnDefinition = "uuid")
   private UUID postId;
 
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
 
+  @PrePersist
+  void prePersist() {
+    if (createdAt == null) createdAt = Instant.now();
+  }
 
   public UUID getId() { return id; }
   public void setId(UUID id) { this.id = id; }
@@ -27,4 +34,7 @@ public class Like {
   
   public UUID getPostId() { return postId; }
   public void setPostId(UUID postId) { this.postId = postId; }
+
+  public Instant getCreatedAt() { return createdAt; }
+  public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 }
@@ -30,6 +30,9 @@ public class Notification {
     @JoinColumn(name = "post_id")
     private Post post; // nullable (follow has no post)
 
+    @Column(name = "actor_id", nullable = false)
+    private UUID actorId; // who caused it; part of the dedup key
+
     @Column(name = "type", nullable = false, length = 50)
     @Enumerated(EnumType.STRING)
     private NotificationType type;
@@ -34,6 +34,9 @@ public class Post {
   @Column(name = "comments_count")
   private Integer commentsCount;
 
+  @Column(name = "saves_count", nullable = false)
+  private Integer savesCount;
+
 
   @Column(name = "created_at", nullable = false)
   private Instant createdAt;
@@ -48,6 +51,8 @@ public class Post {
       likesCount = 0;
     if (commentsCount == null)
       commentsCount = 0;
+    if (savesCount == null)
+      savesCount = 0;
   }
 
 
@@ -107,6 +112,14 @@ public class Post {
     this.commentsCount = commentsCount;
   }
 
+  public Integer getSavesCount() {
+    return savesCount;
+  }
+
+  public void setSavesCount(Integer savesCount) {
+    this.savesCount = savesCount;
+  }
+
 
   public Instant getCreatedAt() {
     return createdAt;
@@ -1,7 +1,7 @@
 package blog.models;
 
 import jakarta.persistence.*;
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.util.UUID;
 import lombok.*;
 @Entity
@@ -22,11 +22,11 @@ public class SavedPost {
   private UUID postId;
 
   @Column(name = "created_at", nullable = false)
-  private LocalDateTime createdAt;
+  private Instant createdAt;
 
   @PrePersist
   void prePersist() {
-    if (createdAt == null) createdAt = LocalDateTime.now();
+    if (createdAt == null) createdAt = Instant.now();
   }
 
   public UUID getId() { return id; }
@@ -38,6 +38,6 @@ public class SavedPost {
   public UUID getPostId() { return postId; }
   public void setPostId(UUID postId) { this.postId = postId; }
 
-  public LocalDateTime getCreatedAt() { return createdAt; }
-  public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+  public Instant getCreatedAt() { return createdAt; }
+  public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 }
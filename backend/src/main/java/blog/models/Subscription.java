@@ -3,6 +3,7 @@ package blog.models;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -27,6 +28,13 @@ public class Subscription {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // oldest post a capped follow backfill copied into home_timeline; null when it copied everything
+    @Column(name = "timeline_horizon_at")
+    private Instant timelineHorizonAt;
+
+    @Column(name = "timeline_horizon_id")
+    private UUID timelineHorizonId;
+
     @PrePersist
     void prePersist() {
         if (createdAt == null)
@@ -1,12 +1,201 @@
 package blog.repository;
 
 import blog.models.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.transaction.annotation.Transactional;import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface CommentRepository extends JpaRepository<Comment, UUID> {
   List<Comment> findByPostIdOrderByCreatedAtDesc(UUID postId);
+
+  // ---- pages of a thread with the author's name and avatar id joined in (idx_comments_post_created)
+
+  String ROW_COLUMNS = """
+      c.id AS id, c.postId AS postId, c.userId AS userId, c.text AS text, c.createdAt AS createdAt,
+      c.parentId AS parentId, c.depth AS depth, c.repliesCount AS repliesCount,
+      u.username AS username, u.avatarMediaId AS avatarMediaId
+      """;
+
+  interface CommentRow {
+    UUID getId();
+
+    UUID getPostId();
+
+    UUID getUserId();
+
+    String getText();
+
+    LocalDateTime getCreatedAt();
+
+    UUID getParentId();
+
+    Short getDepth();
+
+    Integer getRepliesCount();
+
+    String getUsername(); // null if the author row is gone
+
+    UUID getAvatarMediaId();
+  }
+
+  @Query("SELECT " + ROW_COLUMNS + """
+        FROM Comment c
+        LEFT JOIN User u ON u.id = c.userId
+        WHERE c.postId = :postId
+          AND (c.createdAt, c.id) < (:createdAt, :id)
+        ORDER BY c.createdAt DESC, c.id DESC
+      """)
+  List<CommentRow> findPageNewestFirst(
+      @Param("postId") UUID postId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + ROW_COLUMNS + """
+        FROM Comment c
+        LEFT JOIN User u ON u.id = c.userId
+        WHERE c.postId = :postId
+          AND (c.createdAt, c.id) > (:createdAt, :id)
+        ORDER BY c.createdAt ASC, c.id ASC
+      """)
+  List<CommentRow> findPageOldestFirst(
+      @Param("postId") UUID postId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // ---- threads: top-level comments, then replies per parent, oldest first
+
+  @Query("SELECT " + ROW_COLUMNS + """
+        FROM Comment c
+        LEFT JOIN User u ON u.id = c.userId
+        WHERE c.postId = :postId
+          AND c.parentId IS NULL
+          AND (c.createdAt, c.id) < (:createdAt, :id)
+        ORDER BY c.createdAt DESC, c.id DESC
+      """)
+  List<CommentRow> findTopLevelPageNewestFirst(
+      @Param("postId") UUID postId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + ROW_COLUMNS + """
+        FROM Comment c
+        LEFT JOIN User u ON u.id = c.userId
+        WHERE c.postId = :postId
+          AND c.parentId IS NULL
+          AND (c.createdAt, c.id) > (:createdAt, :id)
+        ORDER BY c.createdAt ASC, c.id ASC
+      """)
+  List<CommentRow> findTopLevelPageOldestFirst(
+      @Param("postId") UUID postId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + ROW_COLUMNS + """
+        FROM Comment c
+        LEFT JOIN User u ON u.id = c.userId
+        WHERE c.postId = :postId
+          AND c.parentId = :parentId
+          AND (c.createdAt, c.id) > (:createdAt, :id)
+        ORDER BY c.createdAt ASC, c.id ASC
+      """)
+  List<CommentRow> findRepliesPage(
+      @Param("postId") UUID postId,
+      @Param("parentId") UUID parentId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // first perParent replies of each parent: one LIMITed range scan of idx_comments_parent_created per parent
+  @Query(value = """
+      SELECT r.id AS "id", r.post_id AS "postId", r.user_id AS "userId", r.text AS "text",
+             r.created_at AS "createdAt", r.parent_id AS "parentId", r.depth AS "depth",
+             r.replies_count AS "repliesCount", u.username AS "username", u.avatar_media_id AS "avatarMediaId"
+      FROM comments parent
+      CROSS JOIN LATERAL (
+        SELECT c.* FROM comments c
+        WHERE c.parent_id = parent.id
+        ORDER BY c.created_at, c.id
+        LIMIT :perParent
+      ) r
+      LEFT JOIN users u ON u.id = r.user_id
+      WHERE parent.id IN (:parentIds)
+      ORDER BY r.parent_id, r.created_at, r.id
+      """, nativeQuery = true)
+  List<CommentRow> findFirstReplies(
+      @Param("parentIds") Collection<UUID> parentIds,
+      @Param("perParent") int perParent);
+
+  @Modifying
+  @Transactional
+  @Query("update Comment c set c.repliesCount = c.repliesCount + 1 where c.id = :id")
+  int incrementRepliesCount(@Param("id") UUID id);
+
+  // ---- deletes
+
+  // one statement, so rows whose parent is deleted alongside them do not trip the FK cascade
+  @Modifying
+  @Transactional
+  @Query("delete from Comment c where c.postId = :postId")
+  void deleteByPostId(@Param("postId") UUID postId);
+
+  // :commentId and every reply under it; statements append ", <cte> AS (...)" or their body
+  String SUBTREE = """
+      WITH RECURSIVE subtree AS (
+        SELECT id FROM comments WHERE id = :commentId
+        UNION ALL
+        SELECT c.id FROM comments c JOIN subtree s ON c.parent_id = s.id
+      )
+      """;
+
+  /*
+   * Row locks on a comment and every reply under it, taken before deleting
+   * them: a reply being inserted holds a key-share lock on its parent until
+   * it commits, so this waits for such replies, and the delete statements
+   * that follow (each with a fresh snapshot) count them instead of leaving
+   * them to the FK cascade. Later replies wait and then fail on the FK.
+   */
+  @Query(value = SUBTREE + "SELECT c.id FROM comments c WHERE c.id IN (SELECT id FROM subtree) FOR UPDATE",
+      nativeQuery = true)
+  List<UUID> lockSubtree(@Param("commentId") UUID commentId);
+
+  /*
+   * A comment and every reply under it, deleted explicitly (not left to the
+   * FK cascade) so they can be counted; the parent's replies_count drops only
+   * when this statement is the one that removed the comment. Callers append
+   * ", <cte> AS (...) <statement>" reading from removed (one row per comment).
+   */
+  String DELETE_SUBTREE = SUBTREE + """
+      , removed AS (
+        DELETE FROM comments WHERE id IN (SELECT id FROM subtree)
+        RETURNING id, post_id, parent_id
+      ), parent AS (
+        UPDATE comments SET replies_count = GREATEST(replies_count - 1, 0)
+        WHERE id = (SELECT parent_id FROM removed WHERE id = :commentId)
+      )
+      """;
+
+  // comment rows and posts.comments_count change in one statement; empty = already gone
   @Transactional
-   void deleteByPostId(UUID postId);
+  @Query(value = DELETE_SUBTREE + """
+      , totals AS (
+        SELECT post_id, COUNT(*) AS n FROM removed GROUP BY post_id
+      )
+      UPDATE posts p SET comments_count = GREATEST(p.comments_count - t.n, 0)
+      FROM totals t WHERE p.id = t.post_id
+      RETURNING p.comments_count
+      """, nativeQuery = true)
+  Optional<Integer> deleteAndCount(@Param("commentId") UUID commentId);
 }
@@ -0,0 +1,89 @@
+package blog.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Writes to the home_timeline inbox. Every method is a single set-based
+ * statement; reads go through {@link PostRepository#findHomeTimelinePage}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HomeTimelineRepository {
+
+  private final JdbcTemplate jdbc;
+
+  // push an active post into the inbox of every follower of its author
+  public int fanOut(UUID postId) {
+    String sql = """
+        INSERT INTO home_timeline (user_id, post_id, created_at)
+        SELECT s.subscriber_id, p.id, p.created_at
+        FROM posts p
+        JOIN subscriptions s ON s.subscribed_to_id = p.user_id
+        WHERE p.id = ?
+          AND p.status = 'active'
+          AND s.subscriber_id <> p.user_id
+        ON CONFLICT DO NOTHING
+        """;
+    return jdbc.update(sql, postId);
+  }
+
+  // on follow: copy the author's most recent active posts into the follower's inbox
+  public int backfill(UUID userId, UUID authorId, int limit) {
+    String sql = """
+        INSERT INTO home_timeline (user_id, post_id, created_at)
+        SELECT ?, p.id, p.created_at
+        FROM posts p
+        WHERE p.user_id = ?
+          AND p.status = 'active'
+        ORDER BY p.created_at DESC, p.id DESC
+        LIMIT ?
+        ON CONFLICT DO NOTHING
+        """;
+    return jdbc.update(sql, userId, authorId, limit);
+  }
+
+  /*
+   * After a backfill of limit posts: when the author has more than that, record
+   * the oldest copied post on the subscription so feed reads know where the
+   * inbox stops being complete.
+   */
+  public int markHorizon(UUID userId, UUID authorId, int limit) {
+    String sql = """
+        WITH recent AS (
+          SELECT p.id, p.created_at
+          FROM posts p
+          WHERE p.user_id = ?
+            AND p.status = 'active'
+          ORDER BY p.created_at DESC, p.id DESC
+          LIMIT ?
+        )
+        UPDATE subscriptions s
+        SET timeline_horizon_at = h.created_at, timeline_horizon_id = h.id
+        FROM (SELECT id, created_at FROM recent ORDER BY created_at, id LIMIT 1 OFFSET 1) h
+        WHERE s.subscriber_id = ?
+          AND s.subscribed_to_id = ?
+          AND (SELECT COUNT(*) FROM recent) > ?
+        """;
+    return jdbc.update(sql, authorId, limit + 1, userId, authorId, limit);
+  }
+
+  // on unfollow: drop the author's posts from the follower's inbox
+  public int trim(UUID userId, UUID authorId) {
+    String sql = """
+        DELETE FROM home_timeline t
+        USING posts p
+        WHERE t.post_id = p.id
+          AND t.user_id = ?
+          AND p.user_id = ?
+        """;
+    return jdbc.update(sql, userId, authorId);
+  }
+
+  public int removePost(UUID postId) {
+    return jdbc.update("DELETE FROM home_timeline WHERE post_id = ?", postId);
+  }
+}
@@ -1,8 +1,13 @@
 package blog.repository;
 
 import blog.models.Like;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,4 +18,39 @@ public interface LikeRepository extends JpaRepository<Like, UUID> {
   void deleteByUserIdAndPostId(UUID userId, UUID postId);
   void deleteByPostId(UUID postId);
    List<Like> findByUserId(UUID userId);
+
+  // capped by the caller, which only needs to know whether there are more than it holds
+  @Query("select l.postId from Like l where l.userId = :userId")
+  List<UUID> findPostIdsByUserId(@Param("userId") UUID userId, Pageable limit);
+
+  // which of these posts the user liked (one query per page)
+  @Query("select l.postId from Like l where l.userId = :userId and l.postId in :postIds")
+  List<UUID> findLikedPostIds(@Param("userId") UUID userId, @Param("postIds") Collection<UUID> postIds);
+
+  // ---- toggles: like row and posts.likes_count change in one statement; empty = nothing changed
+
+  @Transactional
+  @Query(value = """
+      WITH added AS (
+        INSERT INTO likes (user_id, post_id) VALUES (:userId, :postId)
+        ON CONFLICT (post_id, user_id) DO NOTHING
+        RETURNING post_id
+      )
+      UPDATE posts p SET likes_count = p.likes_count + 1
+      FROM added WHERE p.id = added.post_id
+      RETURNING p.likes_count
+      """, nativeQuery = true)
+  Optional<Integer> addLike(@Param("userId") UUID userId, @Param("postId") UUID postId);
+
+  @Transactional
+  @Query(value = """
+      WITH removed AS (
+        DELETE FROM likes WHERE user_id = :userId AND post_id = :postId
+        RETURNING post_id
+      )
+      UPDATE posts p SET likes_count = GREATEST(p.likes_count - 1, 0)
+      FROM removed WHERE p.id = removed.post_id
+      RETURNING p.likes_count
+      """, nativeQuery = true)
+  Optional<Integer> removeLike(@Param("userId") UUID userId, @Param("postId") UUID postId);
 }
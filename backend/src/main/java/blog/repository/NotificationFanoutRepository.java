@@ -0,0 +1,145 @@
+package blog.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * notification_fanout: FOLLOWING_POSTED jobs, one per new post, worked off a
+ * chunk of subscribers at a time by FollowerFanout.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationFanoutRepository {
+
+  private static final UUID BEFORE_ALL = new UUID(0, 0);
+
+  private final JdbcTemplate jdbc;
+  private final NamedParameterJdbcTemplate named;
+
+  public record Job(long id, UUID postId, UUID actorId, UUID afterSubscriber, int attempts) {
+  }
+
+  // subscribers handled by one chunk, the last of them (resume point, null when none)
+  // and those whose unseen count went up
+  public record Chunk(int targets, UUID last, List<UUID> gained) {
+  }
+
+  private static final RowMapper<Job> JOB = (rs, i) -> new Job(
+      rs.getLong("id"),
+      rs.getObject("post_id", UUID.class),
+      rs.getObject("actor_id", UUID.class),
+      rs.getObject("after_subscriber", UUID.class),
+      rs.getInt("attempts"));
+
+  public void enqueue(UUID postId, UUID actorId) {
+    jdbc.update("INSERT INTO notification_fanout (post_id, actor_id) VALUES (?, ?)", postId, actorId);
+  }
+
+  // least recently advanced due job, so one huge fan-out does not starve the others
+  public Optional<Job> claimNext() {
+    return jdbc.query("""
+        SELECT id, post_id, actor_id, after_subscriber, attempts
+        FROM notification_fanout
+        WHERE available_at <= NOW()
+        ORDER BY available_at, id
+        LIMIT 1
+        FOR UPDATE SKIP LOCKED
+        """, JOB).stream().findFirst();
+  }
+
+  /*
+   * One chunk in one statement: the next subscribers after the resume point
+   * each get their FOLLOWING_POSTED notification for this post upserted
+   * (a replayed chunk bumps instead of duplicating, see
+   * NotificationWriteRepository) and marked unseen. A hidden or deleted post
+   * has no targets, ending the job. One row per target; gained is false
+   * where the notification was already unseen.
+   */
+  private static final String FAN_OUT_CHUNK = """
+      WITH post AS (
+        SELECT p.id, p.user_id, u.username
+        FROM posts p
+        JOIN users u ON u.id = p.user_id
+        WHERE p.id = :postId AND p.status = 'active'
+      ), targets AS (
+        SELECT s.subscriber_id AS user_id
+        FROM post
+        JOIN subscriptions s ON s.subscribed_to_id = post.user_id
+        WHERE s.subscriber_id > :after
+          AND s.subscriber_id <> post.user_id
+        ORDER BY s.subscriber_id
+        LIMIT :chunk
+      ), upserted AS (
+        INSERT INTO notifications (user_id, actor_id, post_id, type, payload, created_at)
+        SELECT t.user_id, post.user_id, post.id, 'FOLLOWING_POSTED',
+               jsonb_build_object('actorUsername', post.username, 'actorId', post.user_id::text,
+                                  'postId', post.id::text),
+               NOW()
+        FROM targets t, post
+      """ + NotificationWriteRepository.ON_DEDUP_CONFLICT + """
+        RETURNING id, user_id, created_at
+      ), unseen AS (
+      """ + NotificationWriteRepository.UPSERT_UNSEEN + """
+      )
+      SELECT t.user_id, COALESCE(u.added, FALSE) AS gained
+      FROM targets t
+      LEFT JOIN unseen u ON u.user_id = t.user_id
+      ORDER BY t.user_id
+      """;
+
+  public Chunk fanOutChunk(Job job, int chunk) {
+    Map<String, Object> params = Map.of(
+        "postId", job.postId(),
+        "after", job.afterSubscriber() != null ? job.afterSubscriber() : BEFORE_ALL,
+        "chunk", chunk);
+    List<UUID> targets = new ArrayList<>();
+    List<UUID> gained = new ArrayList<>();
+    named.query(FAN_OUT_CHUNK, params, rs -> {
+      UUID target = rs.getObject("user_id", UUID.class);
+      targets.add(target);
+      if (rs.getBoolean("gained"))
+        gained.add(target);
+    });
+    return new Chunk(targets.size(), targets.isEmpty() ? null : targets.get(targets.size() - 1), gained);
+  }
+
+  // moves to the back of the queue so other jobs get their turn
+  public void advance(long id, UUID afterSubscriber) {
+    jdbc.update("""
+        UPDATE notification_fanout
+        SET after_subscriber = ?, available_at = NOW(), attempts = 0, last_error = NULL
+        WHERE id = ?
+        """, afterSubscriber, id);
+  }
+
+  public void delete(long id) {
+    jdbc.update("DELETE FROM notification_fanout WHERE id = ?", id);
+  }
+
+  public void postpone(long id, long delayMs, String error) {
+    jdbc.update("""
+        UPDATE notification_fanout
+        SET attempts = attempts + 1,
+            available_at = NOW() + ? * INTERVAL '1 millisecond',
+            last_error = ?
+        WHERE id = ?
+        """, delayMs, error, id);
+  }
+
+  public NotificationOutboxRepository.Backlog backlog() {
+    return jdbc.queryForObject("""
+        SELECT COUNT(*) AS depth,
+               COALESCE(EXTRACT(EPOCH FROM NOW() - MIN(created_at)) * 1000, 0)::bigint AS lag_ms
+        FROM notification_fanout
+        """, (rs, i) -> new NotificationOutboxRepository.Backlog(rs.getLong("depth"), rs.getLong("lag_ms")));
+  }
+}
@@ -0,0 +1,121 @@
+package blog.repository;
+
+import blog.enums.NotificationType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * notification_outbox: events waiting to become notifications. Written in
+ * the caller's transaction, claimed by NotificationDispatcher's workers with
+ * FOR UPDATE SKIP LOCKED and deleted once delivered.
+ *
+ * Claiming first takes a transaction-scoped advisory lock per shard, so
+ * across every app instance at most one transaction works a shard at a
+ * time. Row locks alone would let a second instance skip a user's locked
+ * event and deliver the next one first.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationOutboxRepository {
+
+  // fixed, so a user's events keep their shard whatever the worker count
+  public static final int SHARDS = 64;
+  // first key of the (key, shard) advisory locks, so they cannot collide with other users of the lock space
+  private static final int SHARD_LOCK = 0x6e6f7466; // "notf"
+
+  private final JdbcTemplate jdbc;
+
+  public record Event(long id, UUID targetId, UUID actorId, NotificationType type, UUID postId, UUID commentId,
+      int attempts) {
+  }
+
+  public record Backlog(long depth, long lagMs) {
+  }
+
+  private static final String COLUMNS = "o.id, o.target_user_id, o.actor_id, o.type, o.post_id, o.comment_id, o.attempts";
+
+  private static final RowMapper<Event> EVENT = (rs, i) -> new Event(
+      rs.getLong("id"),
+      rs.getObject("target_user_id", UUID.class),
+      rs.getObject("actor_id", UUID.class),
+      NotificationType.valueOf(rs.getString("type")),
+      rs.getObject("post_id", UUID.class),
+      rs.getObject("comment_id", UUID.class),
+      rs.getInt("attempts"));
+
+  public static int shardOf(UUID targetId) {
+    return Math.floorMod(targetId.hashCode(), SHARDS);
+  }
+
+  public void append(UUID targetId, UUID actorId, NotificationType type, UUID postId, UUID commentId) {
+    jdbc.update("""
+        INSERT INTO notification_outbox (target_user_id, actor_id, type, post_id, comment_id, shard)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """, targetId, actorId, type.name(), postId, commentId, shardOf(targetId));
+  }
+
+  /*
+   * Oldest due events of those of these shards no other transaction holds,
+   * locked for the current transaction. An event waits while an earlier one
+   * of the same user is backing off, so a retry never lets a later
+   * notification overtake it.
+   */
+  public List<Event> claim(Integer[] shards, int limit) {
+    Integer[] mine = lockShards(shards);
+    if (mine.length == 0)
+      return List.of();
+    return jdbc.query("SELECT " + COLUMNS + """
+         FROM notification_outbox o
+        WHERE o.shard = ANY(?)
+          AND o.available_at <= NOW()
+          AND NOT EXISTS (
+            SELECT 1 FROM notification_outbox e
+            WHERE e.target_user_id = o.target_user_id AND e.id < o.id AND e.available_at > NOW())
+        ORDER BY o.id
+        LIMIT ?
+        FOR UPDATE SKIP LOCKED
+        """, EVENT, mine, limit);
+  }
+
+  // empty if another transaction holds it or its shard, or it is already gone
+  public Optional<Event> lock(long id, UUID targetId) {
+    if (lockShards(new Integer[] { shardOf(targetId) }).length == 0)
+      return Optional.empty();
+    return jdbc.query("SELECT " + COLUMNS + " FROM notification_outbox o WHERE o.id = ? FOR UPDATE SKIP LOCKED",
+        EVENT, id).stream().findFirst();
+  }
+
+  // the shards now held by this transaction (until it ends)
+  private Integer[] lockShards(Integer[] shards) {
+    return jdbc.queryForList("""
+        SELECT s FROM unnest(?::int[]) s
+        WHERE pg_try_advisory_xact_lock(?, s)
+        """, Integer.class, shards, SHARD_LOCK).toArray(Integer[]::new);
+  }
+
+  public void delete(Collection<Long> ids) {
+    jdbc.update("DELETE FROM notification_outbox WHERE id = ANY(?)", (Object) ids.toArray(Long[]::new));
+  }
+
+  public void postpone(long id, long delayMs, String error) {
+    jdbc.update("""
+        UPDATE notification_outbox
+        SET attempts = attempts + 1,
+            available_at = NOW() + ? * INTERVAL '1 millisecond',
+            last_error = ?
+        WHERE id = ?
+        """, delayMs, error, id);
+  }
+
+  public Backlog backlog() {
+    return jdbc.queryForObject("""
+        SELECT COUNT(*) AS depth,
+               COALESCE(EXTRACT(EPOCH FROM NOW() - MIN(created_at)) * 1000, 0)::bigint AS lag_ms
+        FROM notification_outbox
+        """, (rs, i) -> new Backlog(rs.getLong("depth"), rs.getLong("lag_ms")));
+  }
+}
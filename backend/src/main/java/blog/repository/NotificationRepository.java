@@ -1,11 +1,13 @@
 package blog.repository;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
+import blog.dto.NotificationDto;
 import blog.enums.NotificationType;
 import blog.models.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,64 +17,34 @@ import org.springframework.data.jpa.repository.Query;
 
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
 
+  // a page of the user's notifications (idx_notifications_user_created), seen flag and post id included
   @Query("""
-        select n from Notification n
+        select new blog.dto.NotificationDto(
+          n.id, n.type, cast(function('jsonb_extract_path_text', n.payload, 'actorUsername') as String), n.post.id,
+          n.createdAt,
+          case when un.id is null then true else false end)
+        from Notification n
+        left join UnseenNotification un on un.notification = n and un.user.id = :userId
         where n.targetUser.id = :userId
-        order by n.createdAt desc
+          and (n.createdAt, n.id) < (:createdAt, :id)
+        order by n.createdAt desc, n.id desc
       """)
-  List<Notification> findByUser(@Param("userId") UUID userId);
-
-  @Query(value = """
-        select * from notifications n
-        where n.user_id = :targetId
-          and n.type = :type
-          and n.post_id = :postId
-          and (n.payload->>'actorId') = :actorId
-        order by n.created_at desc
-        limit 1
-      """, nativeQuery = true)
-  Optional<Notification> findExistingWithPost(
-      @Param("targetId") UUID targetId,
-      @Param("type") String type,
-      @Param("postId") UUID postId,
-      @Param("actorId") String actorId);
-
-  // ✅ types WITHOUT post (USER_FOLLOWED)
-  @Query(value = """
-        select * from notifications n
-        where n.user_id = :targetId
-          and n.type = :type
-          and n.post_id is null
-          and (n.payload->>'actorId') = :actorId
-        order by n.created_at desc
-        limit 1
-      """, nativeQuery = true)
-  Optional<Notification> findExistingNoPost(
-      @Param("targetId") UUID targetId,
-      @Param("type") String type,
-      @Param("actorId") String actorId);
-
+  List<NotificationDto> findPage(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // a comment's and its replies' notifications in one statement (unseen rows go by cascade);
+  // run before the comments themselves are deleted
   @Modifying
-  @Query(value = """
+  @Query(value = CommentRepository.SUBTREE + """
         delete from notifications n
         where n.type = :type
           and n.post_id = :postId
-          and (n.payload->>'commentId') = :commentId
-      """, nativeQuery = true)
-  void deleteNotificationsByComment(@Param("type") String type,
-      @Param("postId") UUID postId,
-      @Param("commentId") String commentId);
-
-  @Modifying
-  @Query(value = """
-        delete from unseen_notifications un
-        using notifications n
-        where un.notification_id = n.id
-          and n.type = :type
-          and n.post_id = :postId
-          and (n.payload->>'commentId') = :commentId
+          and (n.payload->>'commentId') in (select id::text from subtree)
       """, nativeQuery = true)
-  void deleteUnseenByComment(@Param("type") String type,
+  int deleteBySubtree(@Param("type") String type,
       @Param("postId") UUID postId,
-      @Param("commentId") String commentId);
+      @Param("commentId") UUID commentId);
 }
@@ -0,0 +1,60 @@
+package blog.repository;
+
+import blog.enums.NotificationType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Creates notifications with their unseen row in one statement.
+ *
+ * POST_LIKED, POST_SAVED, USER_FOLLOWED and FOLLOWING_POSTED are kept once
+ * per (target, type, post, actor) by uq_notifications_dedup: a repeat bumps
+ * created_at and marks the existing notification unseen again. Other types
+ * never match that partial index and are always inserted.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationWriteRepository {
+
+  // must imply uq_notifications_dedup's predicate (V16)
+  public static final String ON_DEDUP_CONFLICT = """
+      ON CONFLICT (user_id, type, post_id, actor_id)
+        WHERE type IN ('POST_LIKED', 'POST_SAVED', 'USER_FOLLOWED', 'FOLLOWING_POSTED')
+      DO UPDATE SET created_at = EXCLUDED.created_at
+      """;
+
+  // xmax = 0 only on a freshly inserted row
+  public static final String UPSERT_UNSEEN = """
+      INSERT INTO unseen_notifications (user_id, notification_id, created_at)
+      SELECT user_id, id, created_at FROM upserted
+      ON CONFLICT (user_id, notification_id) DO UPDATE SET created_at = EXCLUDED.created_at
+      RETURNING user_id, (xmax = 0) AS added
+      """;
+
+  private final JdbcTemplate jdbc;
+
+  // clock_timestamp(): a batch delivered in one transaction keeps its event order
+  private static final String UPSERT = """
+      WITH upserted AS (
+        INSERT INTO notifications (user_id, actor_id, post_id, type, payload, created_at)
+        VALUES (?, ?, ?, ?,
+                jsonb_strip_nulls(jsonb_build_object('actorUsername', ?::text, 'actorId', ?::text,
+                                                     'postId', ?::text, 'commentId', ?::text)),
+                clock_timestamp())
+      """ + ON_DEDUP_CONFLICT + """
+        RETURNING id, user_id, created_at
+      )
+      """ + UPSERT_UNSEEN;
+
+  /** True when the target's unseen count went up (a new notification, or a bump of a seen one). */
+  public boolean upsert(UUID targetId, UUID actorId, String actorUsername, NotificationType type, UUID postId,
+      UUID commentId) {
+    return Boolean.TRUE.equals(jdbc.queryForObject(UPSERT, (rs, i) -> rs.getBoolean("added"),
+        targetId, actorId, postId, type.name(),
+        actorUsername, actorId.toString(), postId != null ? postId.toString() : null,
+        commentId != null ? commentId.toString() : null));
+  }
+}
@@ -5,12 +5,15 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface PostCategoryRepository extends JpaRepository<PostCategory, UUID> {
 
   List<PostCategory> findByPostId(UUID postId);
+
+  List<PostCategory> findByPostIdIn(Collection<UUID> postIds);
  @Modifying
 @Transactional
 @Query("delete from PostCategory pc where pc.postId = :postId")
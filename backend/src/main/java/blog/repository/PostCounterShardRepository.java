@@ -0,0 +1,214 @@
+package blog.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Striped like/comment deltas in post_counter_shards. Each toggle changes the
+ * like/comment row and one shard row in a single statement, so concurrent
+ * writers to the same post spread over several rows instead of queueing on
+ * the posts row lock.
+ *
+ * counters.mode=buffered keeps its deltas in memory and uses the table only
+ * to remember which posts it touched: one zero row per post in shard -1
+ * (never a real shard), written with the like / comment row and kept until a clean
+ * shutdown, so the next start recounts exactly those posts.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PostCounterShardRepository {
+
+  private final JdbcTemplate jdbc;
+  private final NamedParameterJdbcTemplate named;
+
+  public record Pending(int likes, int comments) {
+
+    public Pending plus(Pending other) {
+      return new Pending(likes + other.likes, comments + other.comments);
+    }
+  }
+
+  private static final String MARK_DIRTY = """
+      , marked AS (
+        INSERT INTO post_counter_shards (post_id, shard)
+        SELECT DISTINCT post_id, -1 FROM changed
+        ON CONFLICT (post_id, shard) DO NOTHING
+      )
+      """;
+
+  private static final String ADD_TO_SHARD = """
+      INSERT INTO post_counter_shards (post_id, shard, likes_delta, comments_delta)
+      SELECT post_id, ?, ?, ? FROM changed
+      ON CONFLICT (post_id, shard) DO UPDATE
+        SET likes_delta = post_counter_shards.likes_delta + EXCLUDED.likes_delta,
+            comments_delta = post_counter_shards.comments_delta + EXCLUDED.comments_delta
+      """;
+
+  // true when the like was new
+  public boolean addLike(UUID userId, UUID postId, int shard) {
+    String sql = """
+        WITH changed AS (
+          INSERT INTO likes (user_id, post_id) VALUES (?, ?)
+          ON CONFLICT (post_id, user_id) DO NOTHING
+          RETURNING post_id
+        )
+        """ + ADD_TO_SHARD;
+    return jdbc.update(sql, userId, postId, shard, 1, 0) > 0;
+  }
+
+  // true when a like was removed
+  public boolean removeLike(UUID userId, UUID postId, int shard) {
+    String sql = """
+        WITH changed AS (
+          DELETE FROM likes WHERE user_id = ? AND post_id = ?
+          RETURNING post_id
+        )
+        """ + ADD_TO_SHARD;
+    return jdbc.update(sql, userId, postId, shard, -1, 0) > 0;
+  }
+
+  // the comment row itself is written through JPA
+  public void addComment(UUID postId, int shard) {
+    String sql = """
+        WITH changed AS (SELECT ?::uuid AS post_id)
+        """ + ADD_TO_SHARD;
+    jdbc.update(sql, postId, shard, 0, 1);
+  }
+
+  // true when this call removed the comment; its replies go with it and are counted too
+  public boolean deleteComment(UUID commentId, int shard) {
+    String sql = CommentRepository.DELETE_SUBTREE + """
+        , changed AS (
+          SELECT post_id, -COUNT(*) AS comments FROM removed GROUP BY post_id
+        )
+        INSERT INTO post_counter_shards (post_id, shard, likes_delta, comments_delta)
+        SELECT post_id, :shard, 0, comments FROM changed
+        ON CONFLICT (post_id, shard) DO UPDATE
+          SET comments_delta = post_counter_shards.comments_delta + EXCLUDED.comments_delta
+        """;
+    return named.update(sql, Map.of("commentId", commentId, "shard", shard)) > 0;
+  }
+
+  // not-yet-folded deltas for these posts (absent = nothing pending)
+  public Map<UUID, Pending> pending(Collection<UUID> postIds) {
+    if (postIds.isEmpty())
+      return Map.of();
+    String sql = """
+        SELECT post_id, SUM(likes_delta) AS likes, SUM(comments_delta) AS comments
+        FROM post_counter_shards
+        WHERE post_id = ANY (?)
+        GROUP BY post_id
+        """;
+    Map<UUID, Pending> out = new HashMap<>();
+    jdbc.query(sql,
+        rs -> {
+          out.put(rs.getObject("post_id", UUID.class), new Pending(rs.getInt("likes"), rs.getInt("comments")));
+        },
+        (Object) postIds.toArray(UUID[]::new));
+    return out;
+  }
+
+  // ---- buffered mode: the row and the post's marker, no counter; empty / false = nothing changed
+
+  public Optional<UUID> addLikeMarked(UUID userId, UUID postId) {
+    String sql = """
+        WITH changed AS (
+          INSERT INTO likes (user_id, post_id) VALUES (?, ?)
+          ON CONFLICT (post_id, user_id) DO NOTHING
+          RETURNING post_id
+        )
+        """ + MARK_DIRTY + "SELECT post_id FROM changed";
+    return jdbc.query(sql, (rs, i) -> rs.getObject(1, UUID.class), userId, postId).stream().findFirst();
+  }
+
+  public Optional<UUID> removeLikeMarked(UUID userId, UUID postId) {
+    String sql = """
+        WITH changed AS (
+          DELETE FROM likes WHERE user_id = ? AND post_id = ?
+          RETURNING post_id
+        )
+        """ + MARK_DIRTY + "SELECT post_id FROM changed";
+    return jdbc.query(sql, (rs, i) -> rs.getObject(1, UUID.class), userId, postId).stream().findFirst();
+  }
+
+  // the comment row itself is written through JPA
+  public void markDirty(UUID postId) {
+    jdbc.update("""
+        INSERT INTO post_counter_shards (post_id, shard) VALUES (?, -1)
+        ON CONFLICT (post_id, shard) DO NOTHING
+        """, postId);
+  }
+
+  // the post id once per removed comment (replies included); empty = already gone
+  public List<UUID> deleteCommentMarked(UUID commentId) {
+    String sql = CommentRepository.DELETE_SUBTREE + """
+        , changed AS (SELECT post_id FROM removed)
+        """ + MARK_DIRTY + "SELECT post_id FROM removed";
+    return named.queryForList(sql, Map.of("commentId", commentId), UUID.class);
+  }
+
+  private static final String RECOUNT = """
+      UPDATE posts p
+      SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id),
+          comments_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id)
+      """;
+
+  // set these posts' counters from their like / comment rows (used instead of
+  // adding CounterBuffer deltas, so a late or lost delta cannot drift for good)
+  public int recount(Collection<UUID> postIds) {
+    if (postIds.isEmpty())
+      return 0;
+    return jdbc.update(RECOUNT + "WHERE p.id = ANY (?)", (Object) postIds.toArray(UUID[]::new));
+  }
+
+  /*
+   * Start of buffered mode: recounts the posts marked by an earlier buffered
+   * run that did not shut down cleanly, and those with deltas left by a
+   * sharded run. The recount already includes those deltas, so they are
+   * deleted in the same statement instead of being folded on top; markers
+   * stay. Returns the number of posts recounted.
+   */
+  public int recountDirty() {
+    String sql = """
+        WITH leftover AS (
+          DELETE FROM post_counter_shards WHERE shard <> -1
+          RETURNING post_id
+        ), dirty AS (
+          SELECT post_id FROM leftover
+          UNION
+          SELECT post_id FROM post_counter_shards WHERE shard = -1
+        )
+        """ + RECOUNT + "FROM dirty d WHERE p.id = d.post_id";
+    return jdbc.update(sql);
+  }
+
+  // after a clean buffered shutdown every marked post is up to date
+  public int clearMarkers() {
+    return jdbc.update("DELETE FROM post_counter_shards WHERE shard = -1");
+  }
+
+  // move every shard into posts in one statement; returns the number of posts touched.
+  // Markers are left for the next buffered start.
+  public int fold() {
+    String sql = """
+        WITH drained AS (
+          DELETE FROM post_counter_shards WHERE shard <> -1
+          RETURNING post_id, likes_delta, comments_delta
+        ), totals AS (
+          SELECT post_id, SUM(likes_delta) AS likes, SUM(comments_delta) AS comments
+          FROM drained
+          GROUP BY post_id
+        )
+        UPDATE posts p
+        SET likes_count = GREATEST(p.likes_count + t.likes, 0),
+            comments_count = GREATEST(p.comments_count + t.comments, 0)
+        FROM totals t
+        WHERE p.id = t.post_id
+        """;
+    return jdbc.update(sql);
+  }
+}
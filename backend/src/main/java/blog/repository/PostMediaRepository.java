@@ -2,10 +2,22 @@ package blog.repository;
 
 import blog.models.PostMedia;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface PostMediaRepository extends JpaRepository<PostMedia, UUID> {
     List<PostMedia> findByPostIdOrderByPositionAsc(UUID postId);
+    List<PostMedia> findByPostIdInOrderByPositionAsc(Collection<UUID> postIds);
     void deleteByPostId(UUID postId);
+
+    // lowest-position media of each post, for list thumbnails
+    @Query("""
+        select pm from PostMedia pm
+        where pm.postId in :postIds
+          and pm.position = (select min(x.position) from PostMedia x where x.postId = pm.postId)
+        """)
+    List<PostMedia> findThumbnailsByPostIdIn(@Param("postIds") Collection<UUID> postIds);
 }
@@ -1,13 +1,19 @@
 package blog.repository;
 
 import blog.models.Post;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface PostRepository extends JpaRepository<Post, UUID> {
@@ -20,12 +26,23 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
   // PostRepository
   List<Post> findByStatus(String status);
 
+  // list queries below load the author in the same statement (rendering touches it for every row)
+
+  @EntityGraph(attributePaths = "author")
   List<Post> findByAuthorIdAndStatusOrderByCreatedAtDesc(UUID userId, String status);
 
+  @EntityGraph(attributePaths = "author")
   List<Post> findByIdInAndStatusOrderByCreatedAtDesc(List<UUID> ids, String status);
 
+  @EntityGraph(attributePaths = "author")
+  List<Post> findWithAuthorByIdIn(List<UUID> ids);
+
+  @EntityGraph(attributePaths = "author")
+  Optional<Post> findWithAuthorById(UUID id);
+
   @Query("""
         SELECT p FROM Post p
+        JOIN FETCH p.author
         JOIN PostCategory pc ON pc.postId = p.id
         WHERE pc.categoryId = :categoryId AND p.status = :status
         ORDER BY p.createdAt DESC
@@ -59,6 +76,571 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
       @Param("status") String status,
       @Param("userId") UUID userId);
 
+  // ---- keyset pages: rows strictly after (createdAt, id) in (created_at DESC, id DESC) order
+
+  @Query(value = """
+        SELECT p.* FROM posts p
+        WHERE p.status = :status
+          AND p.user_id <> :userId
+          AND p.user_id IN :authorIds
+          AND (p.created_at, p.id) < (CAST(:createdAt AS timestamp), :id)
+        ORDER BY p.created_at DESC, p.id DESC
+      """, nativeQuery = true)
+  List<Post> findFeedPageByAuthorsAndStatusExcludeMe(
+      @Param("authorIds") List<UUID> authorIds,
+      @Param("status") String status,
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // ---- feeds joined to subscriptions in SQL, so the followed-id list never leaves the database
+
+  @Query(value = """
+        SELECT p.* FROM posts p
+        JOIN subscriptions s ON s.subscribed_to_id = p.user_id
+        WHERE s.subscriber_id = :userId
+          AND p.status = :status
+          AND p.user_id <> :userId
+          AND (p.created_at, p.id) < (CAST(:createdAt AS timestamp), :id)
+        ORDER BY p.created_at DESC, p.id DESC
+      """, nativeQuery = true)
+  List<Post> findFeedPageForSubscriberExcludeMe(
+      @Param("userId") UUID userId,
+      @Param("status") String status,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // findFeedPageForSubscriberExcludeMe with the author fetched, for the NEW feed below a timeline horizon
+  @Query("""
+        SELECT p FROM Post p
+        JOIN FETCH p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        WHERE s.subscriberId = :userId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.createdAt, p.id) < (:createdAt, :id)
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findFeedPage(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("""
+        SELECT p FROM Post p
+        JOIN FETCH p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        JOIN PostCategory pc ON pc.postId = p.id
+        WHERE s.subscriberId = :userId
+          AND pc.categoryId = :categoryId
+          AND p.status = :status
+          AND a.id <> :userId
+          AND (p.createdAt, p.id) < (:createdAt, :id)
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findFeedPageForSubscriberByCategoryExcludeMe(
+      @Param("userId") UUID userId,
+      @Param("categoryId") UUID categoryId,
+      @Param("status") String status,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // ---- ranked feeds: rows strictly after (score, createdAt, id) in (count DESC, created_at DESC, id DESC) order
+
+  @Query("""
+        SELECT p FROM Post p
+        JOIN FETCH p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        WHERE s.subscriberId = :userId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.likesCount, p.createdAt, p.id) < (:score, :createdAt, :id)
+        ORDER BY p.likesCount DESC, p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findFeedPageByLikes(
+      @Param("userId") UUID userId,
+      @Param("score") long score,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("""
+        SELECT p FROM Post p
+        JOIN FETCH p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        JOIN PostCategory pc ON pc.postId = p.id
+        WHERE s.subscriberId = :userId
+          AND pc.categoryId = :categoryId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.likesCount, p.createdAt, p.id) < (:score, :createdAt, :id)
+        ORDER BY p.likesCount DESC, p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findFeedPageByLikesAndCategory(
+      @Param("userId") UUID userId,
+      @Param("categoryId") UUID categoryId,
+      @Param("score") long score,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("""
+        SELECT p FROM Post p
+        JOIN FETCH p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        WHERE s.subscriberId = :userId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.savesCount, p.createdAt, p.id) < (:score, :createdAt, :id)
+        ORDER BY p.savesCount DESC, p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findFeedPageBySaves(
+      @Param("userId") UUID userId,
+      @Param("score") long score,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("""
+        SELECT p FROM Post p
+        JOIN FETCH p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        JOIN PostCategory pc ON pc.postId = p.id
+        WHERE s.subscriberId = :userId
+          AND pc.categoryId = :categoryId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.savesCount, p.createdAt, p.id) < (:score, :createdAt, :id)
+        ORDER BY p.savesCount DESC, p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findFeedPageBySavesAndCategory(
+      @Param("userId") UUID userId,
+      @Param("categoryId") UUID categoryId,
+      @Param("score") long score,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // home_timeline inbox (see HomeTimelineRepository for the write side)
+  @Query("""
+        SELECT p FROM HomeTimelineEntry t
+        JOIN Post p ON p.id = t.postId
+        JOIN FETCH p.author
+        WHERE t.userId = :userId
+          AND p.status = 'active'
+          AND (t.createdAt, t.postId) < (:createdAt, :id)
+        ORDER BY t.createdAt DESC, t.postId DESC
+      """)
+  List<Post> findHomeTimelinePage(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // ---- summary projections for list views: no entity, body cut in SQL
+
+  int EXCERPT_CHARS = 300;
+
+  // excerpt is EXCERPT_CHARS + 1 long so the caller can tell the body was cut
+  String SUMMARY_COLUMNS = "p.id AS id, p.title AS title, substring(p.body, 1, " + (EXCERPT_CHARS + 1) + ") AS excerpt,\n"
+      + """
+      a.id AS authorId, a.name AS authorName, a.username AS authorUsername,
+      a.avatarMediaId AS authorAvatarMediaId,
+      p.likesCount AS likesCount, p.commentsCount AS commentsCount, p.savesCount AS savesCount,
+      p.createdAt AS createdAt
+      """;
+
+  interface PostSummaryRef {
+    UUID getId();
+
+    String getTitle();
+
+    String getExcerpt();
+
+    UUID getAuthorId();
+
+    String getAuthorName();
+
+    String getAuthorUsername();
+
+    UUID getAuthorAvatarMediaId();
+
+    Integer getLikesCount();
+
+    Integer getCommentsCount();
+
+    Integer getSavesCount();
+
+    Instant getCreatedAt();
+  }
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM HomeTimelineEntry t
+        JOIN Post p ON p.id = t.postId
+        JOIN p.author a
+        WHERE t.userId = :userId
+          AND p.status = 'active'
+          AND (t.createdAt, t.postId) < (:createdAt, :id)
+        ORDER BY t.createdAt DESC, t.postId DESC
+      """)
+  List<PostSummaryRef> findSummaryHomeTimelinePage(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        WHERE s.subscriberId = :userId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.createdAt, p.id) < (:createdAt, :id)
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummaryFeedPage(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        JOIN PostCategory pc ON pc.postId = p.id
+        WHERE s.subscriberId = :userId
+          AND pc.categoryId = :categoryId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.createdAt, p.id) < (:createdAt, :id)
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummaryFeedPageByCategory(
+      @Param("userId") UUID userId,
+      @Param("categoryId") UUID categoryId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        WHERE s.subscriberId = :userId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.likesCount, p.createdAt, p.id) < (:score, :createdAt, :id)
+        ORDER BY p.likesCount DESC, p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummaryFeedPageByLikes(
+      @Param("userId") UUID userId,
+      @Param("score") long score,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        JOIN PostCategory pc ON pc.postId = p.id
+        WHERE s.subscriberId = :userId
+          AND pc.categoryId = :categoryId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.likesCount, p.createdAt, p.id) < (:score, :createdAt, :id)
+        ORDER BY p.likesCount DESC, p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummaryFeedPageByLikesAndCategory(
+      @Param("userId") UUID userId,
+      @Param("categoryId") UUID categoryId,
+      @Param("score") long score,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        WHERE s.subscriberId = :userId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.savesCount, p.createdAt, p.id) < (:score, :createdAt, :id)
+        ORDER BY p.savesCount DESC, p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummaryFeedPageBySaves(
+      @Param("userId") UUID userId,
+      @Param("score") long score,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        JOIN Subscription s ON s.subscribedToId = a.id
+        JOIN PostCategory pc ON pc.postId = p.id
+        WHERE s.subscriberId = :userId
+          AND pc.categoryId = :categoryId
+          AND p.status = 'active'
+          AND a.id <> :userId
+          AND (p.savesCount, p.createdAt, p.id) < (:score, :createdAt, :id)
+        ORDER BY p.savesCount DESC, p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummaryFeedPageBySavesAndCategory(
+      @Param("userId") UUID userId,
+      @Param("categoryId") UUID categoryId,
+      @Param("score") long score,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        WHERE a.id = :authorId
+          AND p.status = 'active'
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummariesByAuthor(@Param("authorId") UUID authorId);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        WHERE p.id IN :ids
+          AND p.status = 'active'
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummariesByIdIn(@Param("ids") List<UUID> ids);
+
+  // ---- an author's profile, newest first (idx_posts_user_created_id)
+
+  @Query("""
+        SELECT p FROM Post p
+        JOIN FETCH p.author
+        WHERE p.author.id = :authorId
+          AND p.status = 'active'
+          AND (p.createdAt, p.id) < (:createdAt, :id)
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findAuthorPage(
+      @Param("authorId") UUID authorId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        WHERE a.id = :authorId
+          AND p.status = 'active'
+          AND (p.createdAt, p.id) < (:createdAt, :id)
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummaryAuthorPage(
+      @Param("authorId") UUID authorId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // ---- a viewer's liked / saved lists: newest mark first, keyset on (marked at, post id)
+
+  interface MarkedPost {
+    Post getPost();
+
+    Instant getMarkedAt();
+  }
+
+  interface MarkedSummaryRef extends PostSummaryRef {
+    Instant getMarkedAt();
+  }
+
+  // ---- whole liked / saved lists for the legacy endpoints: newest post first, one join each
+
+  @Query("""
+        SELECT p FROM Like l
+        JOIN Post p ON p.id = l.postId
+        JOIN FETCH p.author
+        WHERE l.userId = :userId
+          AND p.status = 'active'
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findLikedByUser(@Param("userId") UUID userId);
+
+  @Query("""
+        SELECT p FROM SavedPost s
+        JOIN Post p ON p.id = s.postId
+        JOIN FETCH p.author
+        WHERE s.userId = :userId
+          AND p.status = 'active'
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findSavedByUser(@Param("userId") UUID userId);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Like l
+        JOIN Post p ON p.id = l.postId
+        JOIN p.author a
+        WHERE l.userId = :userId
+          AND p.status = 'active'
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummariesLikedByUser(@Param("userId") UUID userId);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM SavedPost s
+        JOIN Post p ON p.id = s.postId
+        JOIN p.author a
+        WHERE s.userId = :userId
+          AND p.status = 'active'
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummariesSavedByUser(@Param("userId") UUID userId);
+
+  @Query("""
+        SELECT p AS post, l.createdAt AS markedAt
+        FROM Like l
+        JOIN Post p ON p.id = l.postId
+        JOIN FETCH p.author
+        WHERE l.userId = :userId
+          AND p.status = 'active'
+          AND (l.createdAt, l.postId) < (:createdAt, :id)
+        ORDER BY l.createdAt DESC, l.postId DESC
+      """)
+  List<MarkedPost> findLikedPage(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("""
+        SELECT p AS post, s.createdAt AS markedAt
+        FROM SavedPost s
+        JOIN Post p ON p.id = s.postId
+        JOIN FETCH p.author
+        WHERE s.userId = :userId
+          AND p.status = 'active'
+          AND (s.createdAt, s.postId) < (:createdAt, :id)
+        ORDER BY s.createdAt DESC, s.postId DESC
+      """)
+  List<MarkedPost> findSavedPage(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        , l.createdAt AS markedAt
+        FROM Like l
+        JOIN Post p ON p.id = l.postId
+        JOIN p.author a
+        WHERE l.userId = :userId
+          AND p.status = 'active'
+          AND (l.createdAt, l.postId) < (:createdAt, :id)
+        ORDER BY l.createdAt DESC, l.postId DESC
+      """)
+  List<MarkedSummaryRef> findSummaryLikedPage(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        , s.createdAt AS markedAt
+        FROM SavedPost s
+        JOIN Post p ON p.id = s.postId
+        JOIN p.author a
+        WHERE s.userId = :userId
+          AND p.status = 'active'
+          AND (s.createdAt, s.postId) < (:createdAt, :id)
+        ORDER BY s.createdAt DESC, s.postId DESC
+      """)
+  List<MarkedSummaryRef> findSummarySavedPage(
+      @Param("userId") UUID userId,
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  interface RecentPostRef {
+    UUID getAuthorId();
+
+    UUID getId();
+
+    Instant getCreatedAt();
+  }
+
+  // newest active posts per author, used to fill AuthorRecentPosts rings
+  @Query(value = """
+        SELECT r.user_id AS authorId, r.id AS id, r.created_at AS createdAt
+        FROM (
+          SELECT p.user_id, p.id, p.created_at,
+                 row_number() OVER (PARTITION BY p.user_id ORDER BY p.created_at DESC, p.id DESC) AS rn
+          FROM posts p
+          WHERE p.user_id IN :authorIds
+            AND p.status = 'active'
+        ) r
+        WHERE r.rn <= :perAuthor
+      """, nativeQuery = true)
+  List<RecentPostRef> findRecentActiveByAuthors(
+      @Param("authorIds") List<UUID> authorIds,
+      @Param("perAuthor") int perAuthor);
+
+  // newest active posts of the whole site, used to fill ExploreSnapshot (idx_posts_active_created_id)
+  @Query(value = """
+        SELECT p.user_id AS authorId, p.id AS id, p.created_at AS createdAt
+        FROM posts p
+        WHERE p.status = 'active'
+        ORDER BY p.created_at DESC, p.id DESC
+        LIMIT :limit
+      """, nativeQuery = true)
+  List<RecentPostRef> findRecentActive(@Param("limit") int limit);
+
+  // ---- explore: every active post, newest first, past ExploreSnapshot's window (idx_posts_active_created_id)
+
+  @Query("""
+        SELECT p FROM Post p
+        JOIN FETCH p.author
+        WHERE p.status = 'active'
+          AND (p.createdAt, p.id) < (:createdAt, :id)
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<Post> findExplorePage(
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  @Query("SELECT " + SUMMARY_COLUMNS + """
+        FROM Post p
+        JOIN p.author a
+        WHERE p.status = 'active'
+          AND (p.createdAt, p.id) < (:createdAt, :id)
+        ORDER BY p.createdAt DESC, p.id DESC
+      """)
+  List<PostSummaryRef> findSummaryExplorePage(
+      @Param("createdAt") Instant createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
+
+  // counters are changed in SQL only, so writers load the post read-only and patch it for the response
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  @Query("select p from Post p where p.id = :id")
+  Optional<Post> findReadOnlyById(@Param("id") UUID id);
+
+  @Transactional
+  @Query(value = """
+      UPDATE posts SET comments_count = comments_count + 1
+      WHERE id = :postId
+      RETURNING comments_count
+      """, nativeQuery = true)
+  Optional<Integer> incrementCommentsCount(@Param("postId") UUID postId);
+
   @Modifying
   @Transactional
   @Query("update Post p set p.status = :status where p.id = :postId")
@@ -1,8 +1,12 @@
 package blog.repository;
 
 import blog.models.SavedPost;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,7 +16,41 @@ public interface SavedPostRepository extends JpaRepository<SavedPost, UUID> {
   Optional<SavedPost> findByUserIdAndPostId(UUID userId, UUID postId);
   void deleteByUserIdAndPostId(UUID userId, UUID postId);
   int countByPostId(UUID postId);
+
+  // capped by the caller, which only needs to know whether there are more than it holds
+  @Query("select s.postId from SavedPost s where s.userId = :userId")
+  List<UUID> findPostIdsByUserId(@Param("userId") UUID userId, Pageable limit);
+
+  // which of these posts the user saved (one query per page)
+  @Query("select s.postId from SavedPost s where s.userId = :userId and s.postId in :postIds")
+  List<UUID> findSavedPostIds(@Param("userId") UUID userId, @Param("postIds") Collection<UUID> postIds);
+  @Transactional
+  void deleteByPostId(UUID postId);
+
+  // ---- toggles: saved row and posts.saves_count change in one statement; empty = nothing changed
+
   @Transactional
-  void deleteByPostId(UUID postId); 
+  @Query(value = """
+      WITH added AS (
+        INSERT INTO saved_posts (user_id, post_id) VALUES (:userId, :postId)
+        ON CONFLICT (user_id, post_id) DO NOTHING
+        RETURNING post_id
+      )
+      UPDATE posts p SET saves_count = p.saves_count + 1
+      FROM added WHERE p.id = added.post_id
+      RETURNING p.saves_count
+      """, nativeQuery = true)
+  Optional<Integer> addSave(@Param("userId") UUID userId, @Param("postId") UUID postId);
 
+  @Transactional
+  @Query(value = """
+      WITH removed AS (
+        DELETE FROM saved_posts WHERE user_id = :userId AND post_id = :postId
+        RETURNING post_id
+      )
+      UPDATE posts p SET saves_count = GREATEST(p.saves_count - 1, 0)
+      FROM removed WHERE p.id = removed.post_id
+      RETURNING p.saves_count
+      """, nativeQuery = true)
+  Optional<Integer> removeSave(@Param("userId") UUID userId, @Param("postId") UUID postId);
 }
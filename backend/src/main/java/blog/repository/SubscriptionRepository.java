@@ -1,9 +1,11 @@
 package blog.repository;
 
 import blog.models.Subscription;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,6 +19,23 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, UUID
 
     long countBySubscriberId(UUID subscriberId);
 
+    interface SubscriptionStats {
+        long getFollowers();
+
+        long getFollowing();
+
+        boolean getSubscribed();
+    }
+
+    // both counts and the viewer's follow flag in one round trip; viewerId may be null
+    @Query(value = """
+            SELECT (SELECT COUNT(*) FROM subscriptions WHERE subscribed_to_id = :userId) AS "followers",
+                   (SELECT COUNT(*) FROM subscriptions WHERE subscriber_id = :userId) AS "following",
+                   EXISTS (SELECT 1 FROM subscriptions
+                           WHERE subscriber_id = CAST(:viewerId AS uuid) AND subscribed_to_id = :userId) AS "subscribed"
+            """, nativeQuery = true)
+    SubscriptionStats findStats(@Param("userId") UUID userId, @Param("viewerId") UUID viewerId);
+
     // Add to SubscriptionRepository
     @Query("SELECT DISTINCT s.subscriberId FROM Subscription s WHERE s.subscribedToId = :subscribedToId")
     List<UUID> findSubscriberIdsBySubscribedToId(UUID subscribedToId);
@@ -24,6 +43,15 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, UUID
     @Query("SELECT DISTINCT s.subscribedToId FROM Subscription s WHERE s.subscriberId = :subscriberId")
     List<UUID> findSubscribedToIdsBySubscriberId(UUID subscriberId);
 
+    // the subscriber's newest timeline horizon first: their home_timeline is complete down to it
+    @Query("""
+            SELECT s FROM Subscription s
+            WHERE s.subscriberId = :subscriberId
+              AND s.timelineHorizonAt IS NOT NULL
+            ORDER BY s.timelineHorizonAt DESC, s.timelineHorizonId DESC
+            """)
+    List<Subscription> findTimelineHorizons(@Param("subscriberId") UUID subscriberId, Pageable pageable);
+
     @Modifying
     @Query("DELETE FROM Subscription s WHERE s.subscriberId = :subscriberId AND s.subscribedToId = :subscribedToId")
     void deleteBySubscriberIdAndSubscribedToId(UUID subscriberId, UUID subscribedToId);
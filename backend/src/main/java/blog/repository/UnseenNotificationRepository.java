@@ -1,25 +1,50 @@
 package blog.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import blog.models.UnseenNotification;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
  import java.util.Optional;
 @Repository
 public interface UnseenNotificationRepository
         extends JpaRepository<UnseenNotification, UUID> {
 
+    interface UnseenCount {
+        UUID getUserId();
+
+        long getUnseen();
+    }
+
     boolean existsByNotification_Id(UUID notificationId);
 
     void deleteByNotification_Id(UUID notificationId);
 
-    void deleteByNotification_IdAndUser_Id(UUID notificationId, UUID userId);
+    // 1 when it was seen until now, 0 when it already was unseen
+    @Modifying
+    @Query(value = """
+            insert into unseen_notifications (user_id, notification_id, created_at)
+            values (:userId, :notificationId, now())
+            on conflict (user_id, notification_id) do nothing
+            """, nativeQuery = true)
+    int markUnseen(@Param("userId") UUID userId, @Param("notificationId") UUID notificationId);
 
     Optional<UnseenNotification> findByNotification_IdAndUser_Id(UUID notificationId, UUID userId);
 
+    long countByUser_Id(UUID userId);
 
+    // users without unseen notifications are absent
+    @Query("""
+            select u.user.id as userId, count(u) as unseen
+            from UnseenNotification u
+            where u.user.id in :userIds
+            group by u.user.id
+            """)
+    List<UnseenCount> countByUserIds(@Param("userIds") Collection<UUID> userIds);
 
 }
-
-
@@ -20,6 +20,7 @@ public class AvatarService {
   private final UserRepository users;
   private final LocalMediaStorage storage;
   private final MediaRepository mediaRepo;
+  private final MediaCache mediaCache;
 
   @Transactional
   public void updateAvatar(String username, MultipartFile avatar) {
@@ -38,6 +39,9 @@ public class AvatarService {
 
     media = mediaRepo.save(media);
 
+    // the previous avatar is no longer what this user resolves to
+    if (user.getAvatarMediaId() != null)
+      mediaCache.invalidate(user.getAvatarMediaId());
     user.setAvatarMediaId(media.getId());
     users.save(user);
   }
@@ -0,0 +1,112 @@
+package blog.service;
+
+import blog.dto.CacheStatsDto;
+import blog.dto.CategoryDto;
+import blog.models.Category;
+import blog.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Immutable in-memory copy of the categories table, by id and by slug.
+ *
+ * The table is tiny and almost never written, so every read is served from
+ * the current snapshot. Any change to a Category entity (see
+ * CategoryChangeListener) drops the snapshot after commit and the next read
+ * rebuilds it with a single findAll.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryCatalog {
+
+  private final CategoryRepository categories;
+
+  private final AtomicReference<Snapshot> current = new AtomicReference<>();
+  // bumped on every invalidation so a rebuild that raced with a change is not kept
+  private final AtomicLong generation = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+
+  private record Snapshot(List<CategoryDto> all, Map<UUID, CategoryDto> byId, Map<String, CategoryDto> bySlug) {
+  }
+
+  public List<CategoryDto> all() {
+    hits.increment();
+    return snapshot().all();
+  }
+
+  public Optional<CategoryDto> byId(UUID id) {
+    return count(snapshot().byId().get(id));
+  }
+
+  public Optional<CategoryDto> bySlug(String slug) {
+    return count(snapshot().bySlug().get(slug));
+  }
+
+  public boolean exists(UUID id) {
+    return byId(id).isPresent();
+  }
+
+  public void invalidate() {
+    Runnable drop = () -> {
+      generation.incrementAndGet();
+      current.set(null);
+    };
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          drop.run();
+        }
+      });
+    } else {
+      drop.run();
+    }
+  }
+
+  public CacheStatsDto stats() {
+    Snapshot s = current.get();
+    return new CacheStatsDto("categories", s != null ? s.all().size() : 0,
+        hits.sum(), misses.sum(), loads.sum(), 0);
+  }
+
+  private Optional<CategoryDto> count(CategoryDto found) {
+    (found != null ? hits : misses).increment();
+    return Optional.ofNullable(found);
+  }
+
+  private Snapshot snapshot() {
+    Snapshot s = current.get();
+    if (s != null)
+      return s;
+
+    long seen = generation.get();
+    s = load();
+    if (generation.get() == seen)
+      current.compareAndSet(null, s);
+    return s;
+  }
+
+  private Snapshot load() {
+    loads.increment();
+    List<CategoryDto> all = new ArrayList<>();
+    Map<UUID, CategoryDto> byId = new HashMap<>();
+    Map<String, CategoryDto> bySlug = new HashMap<>();
+    for (Category c : categories.findAll()) {
+      CategoryDto dto = new CategoryDto(c.getId(), c.getName(), c.getSlug());
+      all.add(dto);
+      byId.put(dto.id(), dto);
+      bySlug.put(dto.slug(), dto);
+    }
+    return new Snapshot(List.copyOf(all), Map.copyOf(byId), Map.copyOf(bySlug));
+  }
+}
@@ -0,0 +1,30 @@
+package blog.service;
+
+import blog.models.Category;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on Category; drops the CategoryCatalog snapshot whenever a
+ * category is written. The catalog is looked up lazily because listeners are
+ * created together with the EntityManagerFactory it depends on.
+ */
+@Component
+public class CategoryChangeListener {
+
+  private final ObjectProvider<CategoryCatalog> catalog;
+
+  public CategoryChangeListener(ObjectProvider<CategoryCatalog> catalog) {
+    this.catalog = catalog;
+  }
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void changed(Category category) {
+    catalog.getObject().invalidate();
+  }
+}
@@ -0,0 +1,291 @@
+package blog.service;
+
+import blog.dto.CacheStatsDto;
+import blog.repository.LikeRepository;
+import blog.repository.SavedPostRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU of user id -> the posts that user liked and saved, so the
+ * isLiked / isSaved flags of a page are memory lookups.
+ *
+ * Post ids are mapped to dense int ordinals; each user keeps two sorted
+ * ordinal arrays (4 bytes per like or save). The ordinal table is shared by
+ * all users and dominates memory (one map entry per distinct post, roughly
+ * 100 bytes each, up to max-posts), so it is sized with max-posts rather than
+ * with the number of users.
+ *
+ * A user is loaded on first use in at most two queries of max-per-user + 1
+ * rows and kept current by the like / save write paths after their
+ * transaction commits; writes that land while a load is running are replayed
+ * onto it. Users with more than max-per-user marks are not held in memory;
+ * their pages fall back to one query per flag.
+ */
+@Component
+public class EngagementIndex {
+
+  private final LikeRepository likes;
+  private final SavedPostRepository savedPosts;
+  private final int maxUsers;
+  private final int maxPerUser;
+  private final int maxPosts;
+
+  private final LinkedHashMap<UUID, Marks> users;
+  private volatile Ordinals ordinals = new Ordinals();
+  // user id -> writes seen while a load of that user runs (one list per running load)
+  private final Map<UUID, List<List<Mark>>> loading = new HashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  // post id -> ordinal; replaced wholesale (with every user) once it reaches max-posts
+  private static final class Ordinals {
+    final ConcurrentHashMap<UUID, Integer> byPost = new ConcurrentHashMap<>();
+    final AtomicInteger next = new AtomicInteger();
+
+    int of(UUID postId) {
+      return byPost.computeIfAbsent(postId, k -> next.getAndIncrement());
+    }
+  }
+
+  private record Mark(UUID postId, boolean add, boolean like) {
+  }
+
+  /** Sorted ordinals; null arrays = too many marks to hold, ask the database. */
+  private record Marks(Ordinals ordinals, int[] liked, int[] saved) {
+
+    static final Marks OVERSIZED = new Marks(null, null, null);
+
+    boolean oversized() {
+      return liked == null;
+    }
+  }
+
+  public EngagementIndex(
+      LikeRepository likes,
+      SavedPostRepository savedPosts,
+      @Value("${engagement.index.max-users:5000}") int maxUsers,
+      @Value("${engagement.index.max-per-user:20000}") int maxPerUser,
+      @Value("${engagement.index.max-posts:1000000}") int maxPosts) {
+    this.likes = likes;
+    this.savedPosts = savedPosts;
+    this.maxUsers = maxUsers;
+    this.maxPerUser = maxPerUser;
+    this.maxPosts = maxPosts;
+    this.users = new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, Marks> eldest) {
+        boolean evict = size() > EngagementIndex.this.maxUsers;
+        if (evict)
+          evictions.increment();
+        return evict;
+      }
+    };
+  }
+
+  /*
+   * ============================================================
+   * READ
+   * ============================================================
+   */
+
+  /** Which of these posts the user liked; empty for anonymous viewers. */
+  public Set<UUID> likedAmong(UUID userId, Collection<UUID> postIds) {
+    if (userId == null || postIds.isEmpty())
+      return Set.of();
+    Marks m = marks(userId);
+    if (m.oversized())
+      return new HashSet<>(likes.findLikedPostIds(userId, postIds));
+    return among(m.ordinals(), m.liked(), postIds);
+  }
+
+  /** Which of these posts the user saved; empty for anonymous viewers. */
+  public Set<UUID> savedAmong(UUID userId, Collection<UUID> postIds) {
+    if (userId == null || postIds.isEmpty())
+      return Set.of();
+    Marks m = marks(userId);
+    if (m.oversized())
+      return new HashSet<>(savedPosts.findSavedPostIds(userId, postIds));
+    return among(m.ordinals(), m.saved(), postIds);
+  }
+
+  private static Set<UUID> among(Ordinals ordinals, int[] marked, Collection<UUID> postIds) {
+    Set<UUID> out = new HashSet<>();
+    for (UUID id : postIds) {
+      Integer ord = ordinals.byPost.get(id); // never assigned = nobody marked it
+      if (ord != null && Arrays.binarySearch(marked, ord) >= 0)
+        out.add(id);
+    }
+    return out;
+  }
+
+  private Marks marks(UUID userId) {
+    synchronized (users) {
+      Marks m = users.get(userId);
+      if (m != null) {
+        hits.increment();
+        return m;
+      }
+    }
+    misses.increment();
+    loads.increment();
+
+    List<Mark> racing = new ArrayList<>();
+    synchronized (users) {
+      loading.computeIfAbsent(userId, k -> new ArrayList<>()).add(racing);
+    }
+    Marks loaded = null;
+    try {
+      loaded = load(userId);
+    } finally {
+      synchronized (users) {
+        List<List<Mark>> running = loading.get(userId);
+        running.remove(racing);
+        if (running.isEmpty())
+          loading.remove(userId);
+        if (loaded != null) {
+          // replaying is idempotent for writes the load already saw
+          for (Mark w : racing)
+            loaded = apply(loaded, w);
+          if (loaded.oversized() || loaded.ordinals() == ordinals)
+            users.put(userId, loaded); // else built before a reset
+        }
+      }
+    }
+    return loaded;
+  }
+
+  private Marks load(UUID userId) {
+    List<UUID> liked = likes.findPostIdsByUserId(userId, PageRequest.of(0, maxPerUser + 1));
+    if (liked.size() > maxPerUser)
+      return Marks.OVERSIZED;
+    List<UUID> saved = savedPosts.findPostIdsByUserId(userId, PageRequest.of(0, maxPerUser + 1 - liked.size()));
+    if (liked.size() + saved.size() > maxPerUser)
+      return Marks.OVERSIZED;
+
+    Ordinals ords = currentOrdinals(liked.size() + saved.size());
+    return new Marks(ords, toSortedOrdinals(ords, liked), toSortedOrdinals(ords, saved));
+  }
+
+  private static int[] toSortedOrdinals(Ordinals ords, List<UUID> postIds) {
+    int[] out = new int[postIds.size()];
+    for (int i = 0; i < out.length; i++)
+      out[i] = ords.of(postIds.get(i));
+    Arrays.sort(out);
+    return out;
+  }
+
+  // starts over (dropping every user) rather than letting the ordinal table grow without bound
+  private Ordinals currentOrdinals(int incoming) {
+    Ordinals ords = ordinals;
+    if (ords.byPost.size() + incoming <= maxPosts)
+      return ords;
+    synchronized (users) {
+      if (ordinals == ords) {
+        users.clear();
+        ordinals = new Ordinals();
+      }
+      return ordinals;
+    }
+  }
+
+  /*
+   * ============================================================
+   * WRITE HOOKS (applied after commit)
+   * ============================================================
+   */
+
+  public void onLiked(UUID userId, UUID postId, boolean liked) {
+    afterCommit(() -> update(userId, postId, liked, true));
+  }
+
+  public void onSaved(UUID userId, UUID postId, boolean saved) {
+    afterCommit(() -> update(userId, postId, saved, false));
+  }
+
+  private void update(UUID userId, UUID postId, boolean add, boolean likeMark) {
+    Mark w = new Mark(postId, add, likeMark);
+    synchronized (users) {
+      List<List<Mark>> running = loading.get(userId);
+      if (running != null)
+        running.forEach(racing -> racing.add(w));
+      Marks m = users.get(userId);
+      if (m == null || m.oversized())
+        return;
+      if (m.ordinals() != ordinals) { // built before a reset, reload on next use
+        users.remove(userId);
+        return;
+      }
+      users.put(userId, apply(m, w));
+    }
+  }
+
+  private Marks apply(Marks m, Mark w) {
+    if (m.oversized())
+      return m;
+    int ord = m.ordinals().of(w.postId());
+    int[] liked = w.like() ? toggle(m.liked(), ord, w.add()) : m.liked();
+    int[] saved = w.like() ? m.saved() : toggle(m.saved(), ord, w.add());
+    return liked.length + saved.length > maxPerUser
+        ? Marks.OVERSIZED
+        : new Marks(m.ordinals(), liked, saved);
+  }
+
+  private static int[] toggle(int[] sorted, int ord, boolean add) {
+    return add ? with(sorted, ord) : without(sorted, ord);
+  }
+
+  private static int[] with(int[] sorted, int ord) {
+    int at = Arrays.binarySearch(sorted, ord);
+    if (at >= 0)
+      return sorted;
+    at = -at - 1;
+    int[] out = new int[sorted.length + 1];
+    System.arraycopy(sorted, 0, out, 0, at);
+    out[at] = ord;
+    System.arraycopy(sorted, at, out, at + 1, sorted.length - at);
+    return out;
+  }
+
+  private static int[] without(int[] sorted, int ord) {
+    int at = Arrays.binarySearch(sorted, ord);
+    if (at < 0)
+      return sorted;
+    int[] out = new int[sorted.length - 1];
+    System.arraycopy(sorted, 0, out, 0, at);
+    System.arraycopy(sorted, at + 1, out, at, sorted.length - at - 1);
+    return out;
+  }
+
+  public CacheStatsDto stats() {
+    int size;
+    synchronized (users) {
+      size = users.size();
+    }
+    return new CacheStatsDto("engagement", size, hits.sum(), misses.sum(), loads.sum(), evictions.sum());
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package blog.service;
+
+import blog.dto.NotificationQueueStatsDto;
+import blog.repository.NotificationFanoutRepository;
+import blog.repository.NotificationFanoutRepository.Chunk;
+import blog.repository.NotificationFanoutRepository.Job;
+import blog.repository.NotificationOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Works off notification_fanout: FOLLOWING_POSTED for every subscriber of a
+ * new post's author, without the post request ever touching the subscriber
+ * list.
+ *
+ * A single thread runs one chunk (fanout-chunk subscribers, one statement)
+ * per transaction and then yields for fanout-pause-ms, so a popular author
+ * costs linear, bounded background work and never holds long locks or
+ * crowds out the outbox workers. Jobs take turns chunk by chunk; a failed
+ * chunk is retried with backoff from where the job stopped.
+ */
+@Slf4j
+@Component
+public class FollowerFanout {
+
+  private static final long BASE_BACKOFF_MS = 1_000;
+  private static final long MAX_BACKOFF_MS = 5 * 60_000;
+
+  private final NotificationFanoutRepository fanouts;
+  private final TransactionTemplate tx;
+  private final UnseenCounter unseenCounter;
+  private final int chunkSize;
+  private final long pauseMs;
+  private final int maxAttempts;
+
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "notifications-fanout");
+    t.setDaemon(true);
+    return t;
+  });
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final AtomicBoolean wanted = new AtomicBoolean();
+
+  private final LongAdder written = new LongAdder();
+  private final LongAdder chunks = new LongAdder();
+  private final LongAdder retried = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  public FollowerFanout(
+      NotificationFanoutRepository fanouts,
+      TransactionTemplate tx,
+      UnseenCounter unseenCounter,
+      @Value("${notifications.fanout-chunk:1000}") int chunkSize,
+      @Value("${notifications.fanout-pause-ms:20}") long pauseMs,
+      @Value("${notifications.max-attempts:5}") int maxAttempts) {
+    this.fanouts = fanouts;
+    this.tx = tx;
+    this.unseenCounter = unseenCounter;
+    this.chunkSize = chunkSize;
+    this.pauseMs = pauseMs;
+    this.maxAttempts = maxAttempts;
+  }
+
+  // call after the job's transaction committed
+  public void signal() {
+    wanted.set(true);
+    if (running.compareAndSet(false, true))
+      worker.execute(this::drain);
+  }
+
+  @Scheduled(fixedDelayString = "${notifications.poll-interval-ms:2000}")
+  public void poll() {
+    signal();
+  }
+
+  private void drain() {
+    try {
+      while (wanted.getAndSet(false)) {
+        while (runChunk())
+          pause();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.warn("Follower fan-out stopped early", e);
+    } finally {
+      running.set(false);
+      if (wanted.get() && !worker.isShutdown())
+        signal();
+    }
+  }
+
+  private void pause() throws InterruptedException {
+    if (pauseMs > 0)
+      Thread.sleep(pauseMs);
+  }
+
+  // false when no job is due
+  private boolean runChunk() {
+    AtomicReference<Job> claimed = new AtomicReference<>();
+    AtomicReference<Chunk> done = new AtomicReference<>();
+    try {
+      tx.executeWithoutResult(status -> {
+        Job job = fanouts.claimNext().orElse(null);
+        claimed.set(job);
+        if (job == null)
+          return;
+        Chunk chunk = fanouts.fanOutChunk(job, chunkSize);
+        if (chunk.targets() < chunkSize)
+          fanouts.delete(job.id());
+        else
+          fanouts.advance(job.id(), chunk.last());
+        done.set(chunk);
+      });
+      if (done.get() != null) {
+        written.add(done.get().targets());
+        chunks.increment();
+        done.get().gained().forEach(id -> unseenCounter.add(id, 1));
+      }
+    } catch (RuntimeException e) {
+      Job job = claimed.get();
+      if (job == null)
+        throw e;
+      fail(job, e);
+    }
+    return claimed.get() != null;
+  }
+
+  private void fail(Job job, RuntimeException cause) {
+    if (job.attempts() + 1 >= maxAttempts) {
+      log.warn("Dropping follower fan-out of post {} after {} attempts", job.postId(), job.attempts() + 1, cause);
+      fanouts.delete(job.id());
+      dropped.increment();
+      return;
+    }
+    long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(job.attempts(), 20));
+    fanouts.postpone(job.id(), backoff, String.valueOf(cause.getMessage()));
+    retried.increment();
+  }
+
+  public NotificationQueueStatsDto stats() {
+    NotificationOutboxRepository.Backlog backlog = fanouts.backlog();
+    return new NotificationQueueStatsDto(
+        "fanout", backlog.depth(), backlog.lagMs(), 1,
+        written.sum(), chunks.sum(), retried.sum(), dropped.sum());
+  }
+
+  // unfinished jobs resume from after_subscriber on the next start
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    worker.shutdown();
+    if (!worker.awaitTermination(5, TimeUnit.SECONDS))
+      worker.shutdownNow();
+  }
+}
@@ -0,0 +1,78 @@
+package blog.service;
+
+import blog.dto.CursorPageDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Position in a list ordered by (score DESC, created_at DESC, id DESC).
+ * Lists ordered by time alone leave score at 0.
+ * Clients only ever see it as an opaque string and send it back untouched.
+ */
+public record KeysetCursor(long score, Instant createdAt, UUID id) {
+
+  // sorts after every real row, so "< START" means "from the top"
+  public static final KeysetCursor START = new KeysetCursor(
+      Long.MAX_VALUE,
+      Instant.parse("9999-12-31T00:00:00Z"),
+      new UUID(-1L, -1L));
+
+  // sorts before every real row, for lists read oldest first with "> START_ASCENDING"
+  public static final KeysetCursor START_ASCENDING = new KeysetCursor(
+      Long.MIN_VALUE,
+      Instant.EPOCH,
+      new UUID(0L, 0L));
+
+  public KeysetCursor(Instant createdAt, UUID id) {
+    this(0, createdAt, id);
+  }
+
+  public String encode() {
+    String raw = score + "|" + createdAt + "|" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static KeysetCursor decode(String cursor) {
+    return decode(cursor, START);
+  }
+
+  // start = where an empty cursor begins (START or START_ASCENDING)
+  public static KeysetCursor decode(String cursor, KeysetCursor start) {
+    if (cursor == null || cursor.isBlank())
+      return start;
+    try {
+      String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+      if (parts.length == 2) // issued before score was added
+        return new KeysetCursor(Instant.parse(parts[0]), UUID.fromString(parts[1]));
+      return new KeysetCursor(Long.parseLong(parts[0]), Instant.parse(parts[1]), UUID.fromString(parts[2]));
+    } catch (Exception e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+  }
+
+  public static int clampLimit(int limit, int max) {
+    return Math.max(1, Math.min(limit, max));
+  }
+
+  /**
+   * Cuts a "limit + 1" window down to one page; the extra row only tells us
+   * whether a next cursor is needed.
+   */
+  public static <E, D> CursorPageDto<D> page(
+      List<E> window,
+      int limit,
+      Function<E, KeysetCursor> position,
+      Function<List<E>, List<D>> assemble) {
+    boolean hasMore = window.size() > limit;
+    List<E> rows = hasMore ? window.subList(0, limit) : window;
+    String next = hasMore ? position.apply(rows.get(rows.size() - 1)).encode() : null;
+    return new CursorPageDto<>(assemble.apply(rows), next);
+  }
+}
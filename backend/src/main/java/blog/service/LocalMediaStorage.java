@@ -15,6 +15,7 @@ public class LocalMediaStorage {
 
   private final Path root;
   private final String publicBaseUrl;
+  private final MediaCache mediaCache;
   private static final Set<String> ALLOWED_MIME = Set.of(
       "image/png",
       "image/jpeg",
@@ -25,10 +26,12 @@ public class LocalMediaStorage {
   );
   public LocalMediaStorage(
       @Value("${media.upload.dir:uploads}") String uploadDir,
-      @Value("${media.public.base-url:/uploads}") String baseUrl // recommend relative
+      @Value("${media.public.base-url:/uploads}") String baseUrl, // recommend relative
+      MediaCache mediaCache
   ) {
     this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
     this.publicBaseUrl = baseUrl;
+    this.mediaCache = mediaCache;
     try {
       Files.createDirectories(root);
     } catch (Exception ignored) {
@@ -59,6 +62,8 @@ public class LocalMediaStorage {
     if (url == null || url.isBlank())
       return;
 
+    mediaCache.invalidateUrl(url);
+
     // supports "/uploads/name.png" or "/uploads/name.png?x=y"
     String clean = url.split("\\?")[0];
 
@@ -0,0 +1,164 @@
+package blog.service;
+
+import blog.dto.CacheStatsDto;
+import blog.models.Media;
+import blog.repository.MediaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU of media id -> (url, type).
+ *
+ * Media rows are never edited, only created and deleted, so entries stay
+ * valid until the file or row is removed; the delete paths invalidate them
+ * after commit. Misses are loaded from the database in one query per call.
+ */
+@Component
+public class MediaCache {
+
+  private final MediaRepository mediaRepo;
+  private final int maxEntries;
+
+  private final LinkedHashMap<UUID, MediaRef> entries;
+  // bumped on every invalidation so a load that raced with a delete is not cached
+  private final AtomicLong generation = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public record MediaRef(UUID id, String url, String mediaType) {
+  }
+
+  public MediaCache(MediaRepository mediaRepo, @Value("${media.cache.max-entries:10000}") int maxEntries) {
+    this.mediaRepo = mediaRepo;
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, MediaRef> eldest) {
+        boolean evict = size() > MediaCache.this.maxEntries;
+        if (evict)
+          evictions.increment();
+        return evict;
+      }
+    };
+  }
+
+  /*
+   * ============================================================
+   * READ
+   * ============================================================
+   */
+
+  public Optional<MediaRef> get(UUID id) {
+    if (id == null)
+      return Optional.empty();
+    return Optional.ofNullable(getAll(List.of(id)).get(id));
+  }
+
+  // url of the media row, or null when the id is null / unknown
+  public String url(UUID id) {
+    return get(id).map(MediaRef::url).orElse(null);
+  }
+
+  /** Resolves every known id; unknown ids are simply absent from the result. */
+  public Map<UUID, MediaRef> getAll(Collection<UUID> ids) {
+    Map<UUID, MediaRef> found = new HashMap<>();
+    List<UUID> missing = new ArrayList<>();
+    synchronized (entries) {
+      for (UUID id : ids) {
+        if (id == null || found.containsKey(id))
+          continue;
+        MediaRef ref = entries.get(id);
+        if (ref != null)
+          found.put(id, ref);
+        else
+          missing.add(id);
+      }
+    }
+    hits.add(found.size());
+    if (missing.isEmpty())
+      return found;
+
+    misses.add(missing.size());
+    loads.increment();
+    long seen = generation.get();
+    List<MediaRef> loaded = mediaRepo.findAllById(missing).stream()
+        .map(m -> new MediaRef(m.getId(), m.getUrl(), m.getMediaType()))
+        .toList();
+
+    synchronized (entries) {
+      boolean fresh = generation.get() == seen;
+      for (MediaRef ref : loaded) {
+        found.put(ref.id(), ref);
+        if (fresh)
+          entries.put(ref.id(), ref);
+      }
+    }
+    return found;
+  }
+
+  /*
+   * ============================================================
+   * INVALIDATION (applied after commit)
+   * ============================================================
+   */
+
+  public void invalidate(UUID mediaId) {
+    afterCommit(() -> {
+      synchronized (entries) {
+        entries.remove(mediaId);
+      }
+    });
+  }
+
+  public void invalidate(Collection<Media> media) {
+    List<UUID> ids = media.stream().map(Media::getId).toList();
+    afterCommit(() -> {
+      synchronized (entries) {
+        ids.forEach(entries::remove);
+      }
+    });
+  }
+
+  // the file behind this url is gone; drop whatever row pointed at it
+  public void invalidateUrl(String url) {
+    afterCommit(() -> {
+      synchronized (entries) {
+        entries.values().removeIf(ref -> ref.url().equals(url));
+      }
+    });
+  }
+
+  public CacheStatsDto stats() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    return new CacheStatsDto("media", size, hits.sum(), misses.sum(), loads.sum(), evictions.sum());
+  }
+
+  private void afterCommit(Runnable action) {
+    Runnable bumped = () -> {
+      generation.incrementAndGet();
+      action.run();
+    };
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          bumped.run();
+        }
+      });
+    } else {
+      bumped.run();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package blog.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import blog.models.User;
+import blog.repository.NotificationOutboxRepository.Event;
+import blog.repository.NotificationWriteRepository;
+import blog.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns outbox events into notifications (runs on NotificationDispatcher's
+ * workers, inside their transaction).
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationDelivery {
+
+    private final NotificationWriteRepository writes;
+    private final UserRepository users;
+    private final UnseenCounter unseenCounter;
+
+    // in event order; actors are loaded once for the whole batch, then one upsert per event
+    public void deliver(List<Event> events) {
+        Set<UUID> actorIds = new HashSet<>();
+        events.forEach(e -> actorIds.add(e.actorId()));
+        Map<UUID, User> actors = users.findAllById(actorIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        for (Event e : events) {
+            User actor = actors.get(e.actorId());
+            if (actor == null)
+                continue; // deleted meanwhile
+
+            // bump instead of a second row is decided by the dedup key, see NotificationWriteRepository
+            if (writes.upsert(e.targetId(), actor.getId(), actor.getUsername(), e.type(), e.postId(), e.commentId()))
+                unseenCounter.add(e.targetId(), 1);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package blog.service;
+
+import blog.dto.NotificationQueueStatsDto;
+import blog.repository.NotificationOutboxRepository;
+import blog.repository.NotificationOutboxRepository.Event;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains notification_outbox on a fixed pool of workers.
+ *
+ * Worker w owns the outbox shards s with s % workers == w, a shard is
+ * worked by one transaction at a time across all instances (see
+ * NotificationOutboxRepository), and a user's events always share one
+ * shard, so each user's notifications are created in outbox id order. That
+ * is the order the events were written, except that two transactions writing
+ * for the same user at once may commit in the other order. A worker claims up to batch-size
+ * due events, delivers them in one transaction and deletes them. If that
+ * fails the batch is replayed one event per transaction. A failing event is
+ * retried with exponential backoff and dropped after max-attempts, and the
+ * user's later events wait until it is done.
+ *
+ * Workers are woken after each committing write and by a periodic poll,
+ * which also covers retries and events left over from a previous run.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+  private static final long BASE_BACKOFF_MS = 1_000;
+  private static final long MAX_BACKOFF_MS = 5 * 60_000;
+
+  private final NotificationOutboxRepository outbox;
+  private final NotificationDelivery delivery;
+  private final TransactionTemplate tx;
+  private final int workers;
+  private final int batchSize;
+  private final int maxAttempts;
+
+  private final ExecutorService pool;
+  private final Integer[][] shardsOf;
+  // running: a drain task is queued or active; wanted: new events arrived since it last looked
+  private final AtomicBoolean[] running;
+  private final AtomicBoolean[] wanted;
+
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+  private final LongAdder retried = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  public NotificationDispatcher(
+      NotificationOutboxRepository outbox,
+      NotificationDelivery delivery,
+      TransactionTemplate tx,
+      @Value("${notifications.workers:4}") int workers,
+      @Value("${notifications.batch-size:100}") int batchSize,
+      @Value("${notifications.max-attempts:5}") int maxAttempts) {
+    this.outbox = outbox;
+    this.delivery = delivery;
+    this.tx = tx;
+    this.workers = Math.max(1, Math.min(workers, NotificationOutboxRepository.SHARDS));
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+
+    this.shardsOf = new Integer[this.workers][];
+    this.running = new AtomicBoolean[this.workers];
+    this.wanted = new AtomicBoolean[this.workers];
+    for (int w = 0; w < this.workers; w++) {
+      List<Integer> mine = new ArrayList<>();
+      for (int s = w; s < NotificationOutboxRepository.SHARDS; s += this.workers)
+        mine.add(s);
+      shardsOf[w] = mine.toArray(Integer[]::new);
+      running[w] = new AtomicBoolean();
+      wanted[w] = new AtomicBoolean();
+    }
+
+    AtomicInteger threadNo = new AtomicInteger();
+    this.pool = Executors.newFixedThreadPool(this.workers, r -> {
+      Thread t = new Thread(r, "notifications-" + threadNo.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /*
+   * ============================================================
+   * WAKE-UPS
+   * ============================================================
+   */
+
+  // an event for this user was committed
+  public void signal(UUID targetId) {
+    wake(NotificationOutboxRepository.shardOf(targetId) % workers);
+  }
+
+  @Scheduled(fixedDelayString = "${notifications.poll-interval-ms:2000}")
+  public void poll() {
+    for (int w = 0; w < workers; w++)
+      wake(w);
+  }
+
+  private void wake(int worker) {
+    wanted[worker].set(true);
+    if (running[worker].compareAndSet(false, true))
+      pool.execute(() -> drain(worker));
+  }
+
+  private void drain(int worker) {
+    try {
+      while (wanted[worker].getAndSet(false)) {
+        while (runBatch(worker) == batchSize) {
+          // full batch: there may be more
+        }
+      }
+    } catch (RuntimeException e) {
+      log.warn("Notification worker {} stopped early", worker, e);
+    } finally {
+      running[worker].set(false);
+      if (wanted[worker].get())
+        wake(worker); // a signal that arrived after the last look
+    }
+  }
+
+  /*
+   * ============================================================
+   * DELIVERY
+   * ============================================================
+   */
+
+  // number of events claimed (delivered or not)
+  private int runBatch(int worker) {
+    List<Event> claimed = new ArrayList<>();
+    try {
+      tx.executeWithoutResult(status -> {
+        List<Event> batch = outbox.claim(shardsOf[worker], batchSize);
+        claimed.addAll(batch);
+        if (batch.isEmpty())
+          return;
+        delivery.deliver(batch);
+        outbox.delete(batch.stream().map(Event::id).toList());
+      });
+      if (!claimed.isEmpty()) {
+        batches.increment();
+        delivered.add(claimed.size());
+      }
+    } catch (RuntimeException e) {
+      if (claimed.isEmpty())
+        throw e;
+      log.debug("Notification batch of {} failed, retrying one by one", claimed.size(), e);
+      Set<UUID> held = new HashSet<>();
+      for (Event event : claimed) {
+        // behind a failed event of the same user: left for after its retry
+        if (!held.contains(event.targetId()) && !runOne(event))
+          held.add(event.targetId());
+      }
+    }
+    return claimed.size();
+  }
+
+  // false when the event is waiting for a retry
+  private boolean runOne(Event claimed) {
+    try {
+      boolean done = Boolean.TRUE.equals(tx.execute(status -> {
+        Event e = outbox.lock(claimed.id(), claimed.targetId()).orElse(null);
+        if (e == null)
+          return false;
+        delivery.deliver(List.of(e));
+        outbox.delete(List.of(e.id()));
+        return true;
+      }));
+      if (done)
+        delivered.increment();
+      return true;
+    } catch (RuntimeException ex) {
+      return !fail(claimed, ex);
+    }
+  }
+
+  // true when the event will be retried, false when it was given up
+  private boolean fail(Event e, RuntimeException cause) {
+    if (e.attempts() + 1 >= maxAttempts) {
+      log.warn("Dropping notification event {} ({} for {}) after {} attempts",
+          e.id(), e.type(), e.targetId(), e.attempts() + 1, cause);
+      outbox.delete(List.of(e.id()));
+      dropped.increment();
+      return false;
+    }
+    long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(e.attempts(), 20));
+    outbox.postpone(e.id(), backoff, String.valueOf(cause.getMessage()));
+    retried.increment();
+    return true;
+  }
+
+  public NotificationQueueStatsDto stats() {
+    NotificationOutboxRepository.Backlog backlog = outbox.backlog();
+    return new NotificationQueueStatsDto(
+        "outbox", backlog.depth(), backlog.lagMs(), workers,
+        delivered.sum(), batches.sum(), retried.sum(), dropped.sum());
+  }
+
+  // undelivered events stay in the outbox for the next start
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    pool.shutdown();
+    if (!pool.awaitTermination(5, TimeUnit.SECONDS))
+      pool.shutdownNow();
+  }
+}
@@ -1,17 +1,25 @@
 package blog.service;
 
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import lombok.RequiredArgsConstructor;
+import blog.dto.CursorPageDto;
+import blog.dto.NotificationDto;
 import blog.enums.NotificationType;
 import blog.models.Notification;
 import blog.models.Post;
 import blog.models.UnseenNotification;
 import blog.models.User;
+import blog.repository.NotificationFanoutRepository;
+import blog.repository.NotificationOutboxRepository;
 import blog.repository.NotificationRepository;
 import blog.repository.UnseenNotificationRepository;
 import org.springframework.stereotype.Service;
@@ -20,66 +28,103 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class NotificationService {
 
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final NotificationRepository notificationRepo;
+    private final NotificationOutboxRepository outbox;
+    private final NotificationDispatcher dispatcher;
+    private final NotificationFanoutRepository fanouts;
+    private final FollowerFanout followerFanout;
     private final UnseenNotificationRepository unseenRepo;
+    private final UnseenCounter unseenCounter;
 
+    /**
+     * Records the event in notification_outbox, inside the caller's
+     * transaction; the notification itself is created after commit by
+     * NotificationDispatcher (see NotificationDelivery for dedup).
+     */
     public void notify(User target, User actor, NotificationType type, Post post, UUID commentId) {
 
         if (target.getId().equals(actor.getId()))
             return;
 
-        // ✅ dedup rules: which types should never duplicate?
-        boolean dedup = type == NotificationType.POST_LIKED ||
-                type == NotificationType.POST_SAVED ||
-                type == NotificationType.USER_FOLLOWED ||
-                type == NotificationType.FOLLOWING_POSTED;
+        outbox.append(target.getId(), actor.getId(), type, post != null ? post.getId() : null, commentId);
+        afterCommit(() -> dispatcher.signal(target.getId()));
+    }
 
-        if (dedup) {
-            var actorId = actor.getId().toString();
+    /**
+     * FOLLOWING_POSTED for every subscriber of the author: one job row here,
+     * the per-subscriber work is done after commit by FollowerFanout.
+     */
+    public void notifyFollowers(User author, Post post) {
+        fanouts.enqueue(post.getId(), author.getId());
+        afterCommit(followerFanout::signal);
+    }
 
-            var existing = (post != null)
-                    ? notificationRepo.findExistingWithPost(target.getId(), type.name(), post.getId(), actorId)
-                    : notificationRepo.findExistingNoPost(target.getId(), type.name(), actorId);
+    // ---- lists: one query per page, seen flag from a left join of unseen_notifications
 
-            if (existing.isPresent()) {
-                Notification n = existing.get();
+    public CursorPageDto<NotificationDto> getPage(User me, String cursor, int limit) {
+        return page(me, cursor, KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE));
+    }
 
-                // bump to top
-                n.setCreatedAt(Instant.now());
-                notificationRepo.save(n);
+    // the whole history, same query without a limit
+    public List<NotificationDto> getAll(User me) {
+        KeysetCursor top = KeysetCursor.START;
+        return notificationRepo.findPage(me.getId(), top.createdAt(), top.id(), Pageable.unpaged());
+    }
+
+    private CursorPageDto<NotificationDto> page(User me, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return KeysetCursor.page(
+                notificationRepo.findPage(me.getId(), after.createdAt(), after.id(), PageRequest.of(0, size + 1)),
+                size,
+                n -> new KeysetCursor(n.createdAt(), n.id()),
+                Function.identity());
+    }
+
+    /** Badge count, answered from UnseenCounter. */
+    public long unseenCount(User me) {
+        return unseenCounter.count(me.getId());
+    }
 
-                // mark unseen again
-                unseenRepo.deleteByNotification_IdAndUser_Id(n.getId(), target.getId());
-                unseenRepo.save(new UnseenNotification(target, n));
-                return;
-            }
+    @Transactional
+    public void markSeen(User me, UUID notificationId) {
+        UnseenNotification unseen = unseenRepo.findByNotification_IdAndUser_Id(notificationId, me.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Notification not found or already seen"));
+
+        unseenRepo.delete(unseen);
+        unseenCounter.add(me.getId(), -1);
+    }
+
+    @Transactional
+    public void markUnseen(User me, UUID notificationId) {
+        Notification notif = notificationRepo.findById(notificationId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Notification not found"));
+
+        if (!notif.getTargetUser().getId().equals(me.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not your notification");
         }
 
-        // create new notification
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("actorUsername", actor.getUsername());
-        payload.put("actorId", actor.getId().toString());
-
-        if (post != null)
-            payload.put("postId", post.getId().toString());
-        if (commentId != null)
-            payload.put("commentId", commentId.toString());
-        Notification notif = new Notification();
-        notif.setTargetUser(target);
-        notif.setType(type);
-        notif.setPost(post);
-        notif.setPayload(payload);
-        notif.setCreatedAt(Instant.now());
-
-        notificationRepo.save(notif);
-        unseenRepo.save(new UnseenNotification(target, notif));
+        unseenCounter.add(me.getId(), unseenRepo.markUnseen(me.getId(), notificationId));
     }
 
+    // the comment's and all its replies' notifications; unseen rows removed here
+    // are picked up by UnseenCounter's reconciliation
     @Transactional
-    public void deleteCommentNotification(UUID postId, UUID commentId) {
-        String cid = commentId.toString();
-        notificationRepo.deleteUnseenByComment(NotificationType.POST_COMMENTED.name(), postId, cid);
-        notificationRepo.deleteNotificationsByComment(NotificationType.POST_COMMENTED.name(), postId, cid);
+    public void deleteCommentNotifications(UUID postId, UUID commentId) {
+        notificationRepo.deleteBySubtree(NotificationType.POST_COMMENTED.name(), postId, commentId);
     }
 
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
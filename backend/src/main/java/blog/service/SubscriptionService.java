@@ -5,6 +5,7 @@ import blog.enums.NotificationType;
 import blog.mapper.UserProfileMapper;
 import blog.models.Subscription;
 import blog.models.User;
+import blog.repository.HomeTimelineRepository;
 import blog.repository.SubscriptionRepository;
 import blog.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -20,10 +21,15 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class SubscriptionService {
 
+  // how many of the author's latest posts a new follower gets in their timeline;
+  // older ones are read from the joined feed query (see PostFeedService)
+  private static final int TIMELINE_BACKFILL = 200;
+
   private final UserRepository users;
   private final SubscriptionRepository subscriptions;
   private final NotificationService notificationService;
   private final UserProfileMapper userProfileMapper; // we'll create this below
+  private final HomeTimelineRepository homeTimeline;
 
   @Transactional
   public UserProfileDto subscribe(UUID targetUserId, User me) {
@@ -44,7 +50,9 @@ public class SubscriptionService {
         .createdAt(LocalDateTime.now())
         .build();
 
-    subscriptions.save(s);
+    subscriptions.saveAndFlush(s);
+    homeTimeline.backfill(me.getId(), targetUserId, TIMELINE_BACKFILL);
+    homeTimeline.markHorizon(me.getId(), targetUserId, TIMELINE_BACKFILL);
 
     notificationService.notify(target, me, NotificationType.USER_FOLLOWED, null, null);
 
@@ -57,6 +65,7 @@ public class SubscriptionService {
         .orElseThrow(() -> new NoSuchElementException("Target user not found"));
 
     subscriptions.deleteBySubscriberIdAndSubscribedToId(me.getId(), targetUserId);
+    homeTimeline.trim(me.getId(), targetUserId);
 
     return userProfileMapper.toProfileDto(target, false);
   }
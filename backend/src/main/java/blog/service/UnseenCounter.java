@@ -0,0 +1,189 @@
+package blog.service;
+
+import blog.dto.CacheStatsDto;
+import blog.repository.UnseenNotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user unseen notification counts behind the notification badge, so the
+ * client's polling is answered from memory.
+ *
+ * A user's count is loaded on first use (one index count) and then moved by
+ * the writes that add or remove unseen rows: delivery, follower fan-out and
+ * seen / unseen, each applied after its transaction commits. Rows removed by
+ * cascades (a deleted post, comment or user) are not tracked one by one;
+ * every reconcile-interval-ms the cached users are recounted in grouped
+ * queries, which also corrects any other drift. Users not asked for during
+ * a whole interval are dropped.
+ */
+@Component
+public class UnseenCounter {
+
+  private static final int RECONCILE_BATCH = 500;
+
+  private final UnseenNotificationRepository unseen;
+  private final int maxUsers;
+
+  private final ConcurrentHashMap<UUID, Entry> users = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  // version is bumped by every change, so a count read from the database meanwhile is thrown away
+  private static final class Entry {
+    long count;
+    boolean loaded;
+    long version;
+    volatile boolean read = true;
+  }
+
+  public UnseenCounter(
+      UnseenNotificationRepository unseen,
+      @Value("${notifications.unseen.max-users:50000}") int maxUsers) {
+    this.unseen = unseen;
+    this.maxUsers = maxUsers;
+  }
+
+  /*
+   * ============================================================
+   * READ
+   * ============================================================
+   */
+
+  public long count(UUID userId) {
+    Entry e = users.get(userId);
+    if (e != null) {
+      e.read = true;
+      synchronized (e) {
+        if (e.loaded) {
+          hits.increment();
+          return e.count;
+        }
+      }
+    }
+    misses.increment();
+    if (e == null && users.size() >= maxUsers)
+      return unseen.countByUser_Id(userId); // full: answer without caching
+
+    e = users.computeIfAbsent(userId, k -> new Entry());
+    long seen;
+    synchronized (e) {
+      seen = e.version;
+    }
+    loads.increment();
+    long n = unseen.countByUser_Id(userId);
+    synchronized (e) {
+      if (e.version == seen) {
+        e.count = n;
+        e.loaded = true;
+      }
+    }
+    return n;
+  }
+
+  /*
+   * ============================================================
+   * WRITE HOOKS (applied after commit)
+   * ============================================================
+   */
+
+  // delta: unseen rows added (negative when removed) for this user
+  public void add(UUID userId, long delta) {
+    if (delta != 0)
+      afterCommit(() -> apply(userId, delta));
+  }
+
+  private void apply(UUID userId, long delta) {
+    Entry e = users.get(userId);
+    if (e == null)
+      return; // not cached, nothing to keep current
+    synchronized (e) {
+      e.version++;
+      if (e.loaded)
+        e.count = Math.max(0, e.count + delta);
+    }
+  }
+
+  /*
+   * ============================================================
+   * RECONCILIATION
+   * ============================================================
+   */
+
+  @Scheduled(fixedDelayString = "${notifications.unseen.reconcile-interval-ms:60000}")
+  public void reconcile() {
+    List<UUID> batch = new ArrayList<>(RECONCILE_BATCH);
+    for (Map.Entry<UUID, Entry> me : users.entrySet()) {
+      Entry e = me.getValue();
+      if (!e.read) {
+        if (users.remove(me.getKey(), e))
+          evictions.increment();
+        continue;
+      }
+      e.read = false;
+      batch.add(me.getKey());
+      if (batch.size() == RECONCILE_BATCH) {
+        recount(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty())
+      recount(batch);
+  }
+
+  private void recount(List<UUID> userIds) {
+    Map<UUID, Long> versions = new HashMap<>();
+    for (UUID id : userIds) {
+      Entry e = users.get(id);
+      if (e != null) {
+        synchronized (e) {
+          versions.put(id, e.version);
+        }
+      }
+    }
+    if (versions.isEmpty())
+      return;
+    Map<UUID, Long> counts = new HashMap<>();
+    for (UnseenNotificationRepository.UnseenCount c : unseen.countByUserIds(versions.keySet()))
+      counts.put(c.getUserId(), c.getUnseen());
+
+    versions.forEach((id, seen) -> {
+      Entry e = users.get(id);
+      if (e == null)
+        return;
+      synchronized (e) {
+        if (e.version == seen) {
+          e.count = counts.getOrDefault(id, 0L);
+          e.loaded = true;
+        }
+      }
+    });
+  }
+
+  public CacheStatsDto stats() {
+    return new CacheStatsDto("unseen", users.size(), hits.sum(), misses.sum(), loads.sum(), evictions.sum());
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -1,11 +1,19 @@
 
 package blog.service.admin;
 
+import blog.dto.CacheStatsDto;
 import blog.dto.DailyStatsDto;
+import blog.dto.NotificationQueueStatsDto;
 import blog.dto.ReportCategoryCountDto;
 import blog.dto.StatsDto;
 import blog.dto.TopContributorDto;
 import blog.repository.AdminStatsRepository;
+import blog.service.CategoryCatalog;
+import blog.service.EngagementIndex;
+import blog.service.FollowerFanout;
+import blog.service.MediaCache;
+import blog.service.NotificationDispatcher;
+import blog.service.UnseenCounter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +26,12 @@ import java.util.List;
 public class AdminStatsService {
 
   private final AdminStatsRepository repo;
+  private final CategoryCatalog categoryCatalog;
+  private final MediaCache mediaCache;
+  private final EngagementIndex engagementIndex;
+  private final UnseenCounter unseenCounter;
+  private final NotificationDispatcher notificationDispatcher;
+  private final FollowerFanout followerFanout;
 
   public StatsDto getStats() {
     return repo.fetchStats();
@@ -40,4 +54,14 @@ public class AdminStatsService {
     int safeLimit = Math.max(1, Math.min(limit, 100)); // avoid abuse
     return repo.fetchTopContributors(safeLimit);
   }
+
+  // in-process caches (hit rates etc.)
+  public List<CacheStatsDto> getCacheStats() {
+    return List.of(categoryCatalog.stats(), mediaCache.stats(), engagementIndex.stats(), unseenCounter.stats());
+  }
+
+  // notification outbox and follower fan-out: backlog and worker throughput
+  public List<NotificationQueueStatsDto> getNotificationQueueStats() {
+    return List.of(notificationDispatcher.stats(), followerFanout.stats());
+  }
 }
@@ -4,6 +4,9 @@ import blog.models.Media;
 import blog.repository.MediaRepository;
 import blog.repository.UserRepository;
 import blog.service.LocalMediaStorage;
+import blog.service.MediaCache;
+import blog.service.posts.AuthorRecentPosts;
+import blog.service.posts.ExploreSnapshot;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 
@@ -20,6 +23,9 @@ public class AdminUserModerationService {
     private final UserRepository userRepo;
   private final MediaRepository mediaRepo;
   private final LocalMediaStorage storage;
+  private final MediaCache mediaCache;
+  private final ExploreSnapshot explore;
+  private final AuthorRecentPosts recentPosts;
 
   @Transactional
   public void deleteUserAndAllContent(UUID userId) {
@@ -35,8 +41,12 @@ public class AdminUserModerationService {
 
     // 2) delete media rows
     mediaRepo.deleteByUserId(userId);
+    mediaCache.invalidate(medias);
 
     // 3) delete user (and other content should be cascade / handled elsewhere)
     userRepo.deleteById(userId);
+    // their posts went by cascade, past the post write hooks
+    explore.onAuthorDeleted();
+    recentPosts.onAuthorDeleted(userId);
   }
 }
@@ -0,0 +1,220 @@
+package blog.service.posts;
+
+import blog.models.Post;
+import blog.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory ring of the newest active post ids per author.
+ *
+ * The home feed's first page is a k-way merge of the rings of the authors a
+ * user follows, so it needs no database sort. Rings are loaded lazily (in
+ * bulk) and kept current by the post write paths after their transaction
+ * commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthorRecentPosts {
+
+  static final int RING_SIZE = 64;
+  static final int MAX_AUTHORS = 20_000;
+  private static final int LOAD_CHUNK = 500;
+
+  // same order as the feed queries: created_at DESC, id DESC (uuid compared as unsigned bytes, like Postgres)
+  static final Comparator<Entry> NEWEST_FIRST = (a, b) -> {
+    int c = b.createdAt().compareTo(a.createdAt());
+    return c != 0 ? c : compareUuid(b.postId(), a.postId());
+  };
+
+  private final PostRepository posts;
+
+  private final ConcurrentHashMap<UUID, Ring> rings = new ConcurrentHashMap<>();
+  // bumped on every mutation so a load that raced with a write is not cached
+  private final AtomicLong generation = new AtomicLong();
+  // held by the write hooks and by a load publishing its rings, so no write slips between check and put
+  private final Object lock = new Object();
+
+  public record Entry(UUID postId, Instant createdAt) {
+  }
+
+  /** Newest first. complete = the author has no active posts outside the ring. */
+  record Ring(Entry[] entries, boolean complete) {
+
+    Ring with(Entry e) {
+      for (Entry x : entries)
+        if (x.postId().equals(e.postId()))
+          return this;
+      List<Entry> list = new ArrayList<>(Arrays.asList(entries));
+      list.add(e);
+      list.sort(NEWEST_FIRST);
+      boolean trimmed = list.size() > RING_SIZE;
+      if (trimmed)
+        list = list.subList(0, RING_SIZE);
+      return new Ring(list.toArray(Entry[]::new), complete && !trimmed);
+    }
+
+    Ring without(UUID postId) {
+      Entry[] kept = Arrays.stream(entries).filter(e -> !e.postId().equals(postId)).toArray(Entry[]::new);
+      return kept.length == entries.length ? this : new Ring(kept, complete);
+    }
+  }
+
+  /*
+   * ============================================================
+   * READ
+   * ============================================================
+   */
+
+  /**
+   * Merges the rings of the given authors and returns up to {@code count} post
+   * ids, newest first. Empty when a ring that may hide older posts runs out
+   * before the page is full; the caller should then go to the database.
+   */
+  public Optional<List<UUID>> newest(Collection<UUID> authorIds, int count) {
+    List<Ring> sources = ringsFor(authorIds);
+
+    record Head(Ring ring, int index) {
+      Entry entry() {
+        return ring.entries()[index];
+      }
+    }
+
+    PriorityQueue<Head> heap = new PriorityQueue<>(
+        Math.max(1, sources.size()), (a, b) -> NEWEST_FIRST.compare(a.entry(), b.entry()));
+    for (Ring r : sources) {
+      if (r.entries().length > 0)
+        heap.add(new Head(r, 0));
+    }
+
+    List<UUID> out = new ArrayList<>(count);
+    while (out.size() < count && !heap.isEmpty()) {
+      Head h = heap.poll();
+      out.add(h.entry().postId());
+
+      int next = h.index() + 1;
+      if (next < h.ring().entries().length) {
+        heap.add(new Head(h.ring(), next));
+      } else if (!h.ring().complete() && out.size() < count) {
+        return Optional.empty();
+      }
+    }
+    return Optional.of(out);
+  }
+
+  private List<Ring> ringsFor(Collection<UUID> authorIds) {
+    List<Ring> found = new ArrayList<>(authorIds.size());
+    List<UUID> missing = new ArrayList<>();
+    for (UUID id : authorIds) {
+      Ring r = rings.get(id);
+      if (r != null)
+        found.add(r);
+      else
+        missing.add(id);
+    }
+
+    for (int i = 0; i < missing.size(); i += LOAD_CHUNK) {
+      found.addAll(load(missing.subList(i, Math.min(i + LOAD_CHUNK, missing.size()))).values());
+    }
+    return found;
+  }
+
+  private Map<UUID, Ring> load(List<UUID> authorIds) {
+    long seen = generation.get();
+
+    // one extra row per author tells us whether the ring holds everything
+    Map<UUID, List<Entry>> byAuthor = new HashMap<>();
+    for (UUID id : authorIds)
+      byAuthor.put(id, new ArrayList<>());
+    for (PostRepository.RecentPostRef ref : posts.findRecentActiveByAuthors(authorIds, RING_SIZE + 1)) {
+      byAuthor.get(ref.getAuthorId()).add(new Entry(ref.getId(), ref.getCreatedAt()));
+    }
+
+    Map<UUID, Ring> loaded = new HashMap<>();
+    byAuthor.forEach((author, list) -> {
+      list.sort(NEWEST_FIRST);
+      boolean complete = list.size() <= RING_SIZE;
+      List<Entry> kept = complete ? list : list.subList(0, RING_SIZE);
+      loaded.put(author, new Ring(kept.toArray(Entry[]::new), complete));
+    });
+
+    synchronized (lock) {
+      if (generation.get() == seen) {
+        makeRoom(loaded.size());
+        loaded.forEach(rings::putIfAbsent);
+      }
+    }
+    return loaded;
+  }
+
+  // crude bound: drop arbitrary rings, they reload on demand
+  private void makeRoom(int incoming) {
+    Iterator<UUID> it = rings.keySet().iterator();
+    while (rings.size() + incoming > MAX_AUTHORS && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  /*
+   * ============================================================
+   * WRITE HOOKS (applied after commit)
+   * ============================================================
+   */
+
+  public void onCreated(Post post) {
+    UUID authorId = post.getAuthor().getId();
+    Entry e = new Entry(post.getId(), post.getCreatedAt());
+    afterCommit(() -> rings.computeIfPresent(authorId, (k, r) -> r.with(e)));
+  }
+
+  public void onUpdated(Post post) {
+    if (!"active".equalsIgnoreCase(post.getStatus()))
+      return;
+    onCreated(post); // no-op when the id is already in the ring
+  }
+
+  public void onRemoved(UUID authorId, UUID postId) {
+    afterCommit(() -> rings.computeIfPresent(authorId, (k, r) -> r.without(postId)));
+  }
+
+  // a post came back: simplest correct thing is to reload the author's ring
+  public void onReactivated(UUID authorId) {
+    afterCommit(() -> rings.remove(authorId));
+  }
+
+  public void onAuthorDeleted(UUID authorId) {
+    afterCommit(() -> rings.remove(authorId));
+  }
+
+  private void afterCommit(Runnable action) {
+    Runnable bumped = () -> {
+      synchronized (lock) {
+        generation.incrementAndGet();
+        action.run();
+      }
+    };
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          bumped.run();
+        }
+      });
+    } else {
+      bumped.run();
+    }
+  }
+
+  static int compareUuid(UUID a, UUID b) {
+    int c = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+    return c != 0 ? c : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+  }
+}
@@ -0,0 +1,70 @@
+package blog.service.posts;
+
+import blog.repository.PostCounterShardRepository.Pending;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Committed like / comment deltas that have not reached posts yet
+ * (counters.mode=buffered). PostCounters drains it in one batched UPDATE.
+ *
+ * Deltas are immutable and merged per post, so taking a post's entry out is
+ * a single atomic remove and never loses an increment racing the flush.
+ */
+@Component
+class CounterBuffer {
+
+  private final ConcurrentHashMap<UUID, Pending> deltas = new ConcurrentHashMap<>();
+
+  // recorded only if the surrounding transaction commits
+  void add(UUID postId, int likes, int comments) {
+    Pending delta = new Pending(likes, comments);
+    afterCommit(() -> deltas.merge(postId, delta, Pending::plus));
+  }
+
+  Map<UUID, Pending> peek(Collection<UUID> postIds) {
+    Map<UUID, Pending> out = new HashMap<>();
+    for (UUID id : postIds) {
+      Pending p = deltas.get(id);
+      if (p != null)
+        out.put(id, p);
+    }
+    return out;
+  }
+
+  Map<UUID, Pending> drain() {
+    Map<UUID, Pending> out = new HashMap<>();
+    for (UUID id : deltas.keySet()) {
+      Pending p = deltas.remove(id);
+      if (p != null)
+        out.put(id, p);
+    }
+    return out;
+  }
+
+  // a failed flush puts its batch back
+  void restore(Map<UUID, Pending> batch) {
+    batch.forEach((id, p) -> deltas.merge(id, p, Pending::plus));
+  }
+
+  int size() {
+    return deltas.size();
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package blog.service.posts;
+
+import blog.models.Post;
+import blog.repository.PostRepository;
+import blog.service.KeysetCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import static blog.service.posts.AuthorRecentPosts.NEWEST_FIRST;
+
+/**
+ * The newest active posts of the whole site, newest first, shared by every
+ * explore reader.
+ *
+ * Readers take the current array without locking; writers (the post write
+ * paths, after their transaction commits) publish a patched copy. Pages that
+ * run past the window go to the database.
+ */
+@Component
+public class ExploreSnapshot {
+
+  private final PostRepository posts;
+  private final int size;
+
+  // null = not loaded (or dropped); loaded lazily on the next read
+  private volatile Window window;
+  // bumped on every mutation so a load that raced with a write is not kept
+  private final AtomicLong generation = new AtomicLong();
+
+  /** complete = there are no active posts older than the last entry. */
+  private record Window(AuthorRecentPosts.Entry[] entries, boolean complete) {
+  }
+
+  public ExploreSnapshot(PostRepository posts, @Value("${explore.snapshot-size:500}") int size) {
+    this.posts = posts;
+    this.size = size;
+  }
+
+  /*
+   * ============================================================
+   * READ
+   * ============================================================
+   */
+
+  /**
+   * Up to {@code count} post ids strictly after {@code after}, newest first.
+   * Empty when the window ends before the page is full and older posts
+   * exist; the caller should then go to the database.
+   */
+  public Optional<List<UUID>> after(KeysetCursor after, int count) {
+    Window w = current();
+    AuthorRecentPosts.Entry[] entries = w.entries();
+
+    int from = 0;
+    if (after != KeysetCursor.START) {
+      int at = Arrays.binarySearch(entries, new AuthorRecentPosts.Entry(after.id(), after.createdAt()), NEWEST_FIRST);
+      from = at >= 0 ? at + 1 : -at - 1;
+    }
+
+    int to = Math.min(entries.length, from + count);
+    if (to - from < count && !w.complete())
+      return Optional.empty();
+
+    List<UUID> out = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++)
+      out.add(entries[i].postId());
+    return Optional.of(out);
+  }
+
+  private Window current() {
+    Window w = window;
+    if (w != null)
+      return w;
+
+    long seen = generation.get();
+    // one extra row tells us whether the window holds everything
+    List<AuthorRecentPosts.Entry> list = new ArrayList<>();
+    for (PostRepository.RecentPostRef ref : posts.findRecentActive(size + 1))
+      list.add(new AuthorRecentPosts.Entry(ref.getId(), ref.getCreatedAt()));
+    boolean complete = list.size() <= size;
+    Window loaded = new Window(
+        (complete ? list : list.subList(0, size)).toArray(AuthorRecentPosts.Entry[]::new), complete);
+
+    synchronized (this) {
+      if (window == null && generation.get() == seen)
+        window = loaded;
+    }
+    return loaded;
+  }
+
+  /*
+   * ============================================================
+   * WRITE HOOKS (applied after commit)
+   * ============================================================
+   */
+
+  public void onCreated(Post post) {
+    AuthorRecentPosts.Entry e = new AuthorRecentPosts.Entry(post.getId(), post.getCreatedAt());
+    afterCommit(() -> patch(w -> with(w, e)));
+  }
+
+  public void onUpdated(Post post) {
+    if (!"active".equalsIgnoreCase(post.getStatus()))
+      return;
+    onCreated(post); // no-op when the id is already in the window
+  }
+
+  public void onRemoved(UUID postId) {
+    afterCommit(() -> patch(w -> without(w, postId)));
+  }
+
+  // a post came back somewhere in the middle: reload on the next read
+  public void onReactivated() {
+    afterCommit(() -> window = null);
+  }
+
+  // all of a deleted user's posts went by cascade: reload on the next read
+  public void onAuthorDeleted() {
+    afterCommit(() -> window = null);
+  }
+
+  private synchronized void patch(UnaryOperator<Window> change) {
+    Window w = window;
+    if (w != null)
+      window = change.apply(w);
+  }
+
+  private Window with(Window w, AuthorRecentPosts.Entry e) {
+    AuthorRecentPosts.Entry[] entries = w.entries();
+    int at = Arrays.binarySearch(entries, e, NEWEST_FIRST);
+    if (at >= 0)
+      return w;
+    at = -at - 1;
+    if (at >= size || (at == entries.length && !w.complete()))
+      return w; // older than everything we hold
+
+    boolean trimmed = entries.length == size;
+    AuthorRecentPosts.Entry[] out = new AuthorRecentPosts.Entry[trimmed ? size : entries.length + 1];
+    System.arraycopy(entries, 0, out, 0, at);
+    out[at] = e;
+    System.arraycopy(entries, at, out, at + 1, out.length - at - 1);
+    return new Window(out, w.complete() && !trimmed);
+  }
+
+  private static Window without(Window w, UUID postId) {
+    AuthorRecentPosts.Entry[] entries = w.entries();
+    AuthorRecentPosts.Entry[] kept = Arrays.stream(entries)
+        .filter(e -> !e.postId().equals(postId))
+        .toArray(AuthorRecentPosts.Entry[]::new);
+    return kept.length == entries.length ? w : new Window(kept, w.complete());
+  }
+
+  private void afterCommit(Runnable action) {
+    Runnable bumped = () -> {
+      generation.incrementAndGet();
+      action.run();
+    };
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          bumped.run();
+        }
+      });
+    } else {
+      bumped.run();
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package blog.service.posts;
 
 import blog.models.Post;
+import blog.repository.HomeTimelineRepository;
 import blog.repository.PostRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -16,6 +17,9 @@ import java.util.UUID;
 public class PostAdminService {
 
   private final PostRepository posts;
+  private final HomeTimelineRepository homeTimeline;
+  private final AuthorRecentPosts recentPosts;
+  private final ExploreSnapshot explore;
 
   private Post requirePost(UUID postId) {
     return posts.findById(postId)
@@ -33,6 +37,17 @@ public class PostAdminService {
 
     Post post = requirePost(postId);
     post.setStatus(status.toLowerCase());
-    posts.save(post);
+    posts.saveAndFlush(post);
+
+    // hidden posts leave followers' timelines; re-activated ones go back in
+    if ("hidden".equals(post.getStatus())) {
+      homeTimeline.removePost(postId);
+      recentPosts.onRemoved(post.getAuthor().getId(), postId);
+      explore.onRemoved(postId);
+    } else {
+      homeTimeline.fanOut(postId);
+      recentPosts.onReactivated(post.getAuthor().getId());
+      explore.onReactivated();
+    }
   }
 }
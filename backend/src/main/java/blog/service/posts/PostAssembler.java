@@ -2,44 +2,172 @@ package blog.service.posts;
 
 import blog.dto.CategoryDto;
 import blog.dto.PostDetailDto;
+import blog.dto.PostMediaDto;
+import blog.dto.PostSummaryDto;
 import blog.mapper.PostMapper;
 import blog.models.Post;
+import blog.models.PostCategory;
+import blog.models.PostMedia;
 import blog.repository.*;
+import blog.repository.PostCounterShardRepository.Pending;
+import blog.service.CategoryCatalog;
+import blog.service.EngagementIndex;
+import blog.service.MediaCache;
 import org.springframework.stereotype.Component;
 import lombok.RequiredArgsConstructor;
-import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Predicate;
 
 @Component
 @RequiredArgsConstructor
 public class PostAssembler {
 
-  private final LikeRepository likes;
-  private final SavedPostRepository savedPosts;
-  private final CategoryRepository categories;
+  private final EngagementIndex engagement;
+  private final CategoryCatalog categories;
   private final PostCategoryRepository postCategories;
-  private final MediaRepository mediaRepo;
+  private final MediaCache mediaCache;
+  private final PostCounters counters;
   private final PostMediaRepository postMediaRepo;
 
- 
-  private List<CategoryDto> getCategoryDtos(UUID postId) {
-    return postCategories.findByPostId(postId).stream()
-        .map(pc -> categories.findById(pc.getCategoryId())
-            .map(c -> new CategoryDto(c.getId(), c.getName(), c.getSlug()))
-            .orElse(null))
+  public PostDetailDto toDetail(Post post, UUID currentUserId) {
+    return toDetails(List.of(post), currentUserId).get(0);
+  }
+
+  public PostDetailDto toDetail(Post post, boolean isLiked, boolean isSaved) {
+    return hydrate(List.of(post), id -> isLiked, id -> isSaved).get(0);
+  }
+
+  /**
+   * Whole page in a fixed number of queries (post_categories, post_media,
+   * media and pending counters; likes and saves come from EngagementIndex)
+   * instead of several per post. Keeps the order of {@code page}.
+   */
+  public List<PostDetailDto> toDetails(List<Post> page, UUID currentUserId) {
+    if (page.isEmpty())
+      return List.of();
+
+    List<UUID> postIds = page.stream().map(Post::getId).toList();
+    return hydrate(page, likedAmong(currentUserId, postIds)::contains, savedAmong(currentUserId, postIds)::contains);
+  }
+
+  /**
+   * List cards from summary rows: viewer flags, the first media item of each
+   * post and avatars, again in a fixed number of queries.
+   */
+  public List<PostSummaryDto> toSummaries(List<? extends PostRepository.PostSummaryRef> rows, UUID currentUserId) {
+    if (rows.isEmpty())
+      return List.of();
+
+    List<UUID> postIds = rows.stream().map(PostRepository.PostSummaryRef::getId).toList();
+    Set<UUID> liked = likedAmong(currentUserId, postIds);
+    Set<UUID> saved = savedAmong(currentUserId, postIds);
+
+    Map<UUID, PostMedia> thumbByPost = new HashMap<>();
+    for (PostMedia pm : postMediaRepo.findThumbnailsByPostIdIn(postIds))
+      thumbByPost.putIfAbsent(pm.getPostId(), pm);
+
+    Set<UUID> mediaIds = new HashSet<>();
+    thumbByPost.values().forEach(pm -> mediaIds.add(pm.getMediaId()));
+    rows.stream()
+        .map(PostRepository.PostSummaryRef::getAuthorAvatarMediaId)
         .filter(Objects::nonNull)
-        .toList();
+        .forEach(mediaIds::add);
+    Map<UUID, MediaCache.MediaRef> mediaById = mediaCache.getAll(mediaIds);
+    Map<UUID, Pending> pending = counters.pending(postIds);
+
+    return rows.stream().map(r -> {
+      PostMedia thumbLink = thumbByPost.get(r.getId());
+      MediaCache.MediaRef thumb = thumbLink != null ? mediaById.get(thumbLink.getMediaId()) : null;
+      MediaCache.MediaRef avatar = r.getAuthorAvatarMediaId() != null ? mediaById.get(r.getAuthorAvatarMediaId()) : null;
+      String excerpt = r.getExcerpt();
+      boolean truncated = excerpt.length() > PostRepository.EXCERPT_CHARS;
+
+      return new PostSummaryDto(
+          r.getId(),
+          r.getTitle(),
+          truncated ? excerpt.substring(0, PostRepository.EXCERPT_CHARS) : excerpt,
+          truncated,
+          r.getAuthorName(),
+          r.getAuthorUsername(),
+          r.getAuthorId(),
+          avatar != null ? avatar.url() : null,
+          likesWithPending(r.getLikesCount(), pending.get(r.getId())),
+          commentsWithPending(r.getCommentsCount(), pending.get(r.getId())),
+          r.getCreatedAt(),
+          thumb != null ? thumb.url() : null,
+          thumb != null ? thumb.mediaType() : null,
+          liked.contains(r.getId()),
+          saved.contains(r.getId()));
+    }).toList();
   }
 
-  public PostDetailDto toDetail(Post post, UUID currentUserId) {
-    boolean isLiked = currentUserId != null && likes.findByUserIdAndPostId(currentUserId, post.getId()).isPresent();
-    boolean isSaved = currentUserId != null && savedPosts.findByUserIdAndPostId(currentUserId, post.getId()).isPresent();
-    return toDetail(post, isLiked, isSaved);
+  // deltas not yet folded into posts (see PostCounters)
+  private static int likesWithPending(Integer base, Pending pending) {
+    return Math.max(0, (base != null ? base : 0) + (pending != null ? pending.likes() : 0));
   }
 
-  public PostDetailDto toDetail(Post post, boolean isLiked, boolean isSaved) {
-    List<CategoryDto> cats = getCategoryDtos(post.getId());
-    return PostMapper.toDetail(post, mediaRepo, postMediaRepo, cats, isLiked, isSaved);
+  private static int commentsWithPending(Integer base, Pending pending) {
+    return Math.max(0, (base != null ? base : 0) + (pending != null ? pending.comments() : 0));
+  }
+
+  private Set<UUID> likedAmong(UUID userId, List<UUID> postIds) {
+    return engagement.likedAmong(userId, postIds);
+  }
+
+  private Set<UUID> savedAmong(UUID userId, List<UUID> postIds) {
+    return engagement.savedAmong(userId, postIds);
+  }
+
+  private List<PostDetailDto> hydrate(List<Post> page, Predicate<UUID> isLiked, Predicate<UUID> isSaved) {
+    if (page.isEmpty())
+      return List.of();
+    List<UUID> postIds = page.stream().map(Post::getId).toList();
+
+    // categories (names come from the in-memory catalog)
+    Map<UUID, List<CategoryDto>> categoriesByPost = new HashMap<>();
+    for (PostCategory pc : postCategories.findByPostIdIn(postIds)) {
+      categories.byId(pc.getCategoryId()).ifPresent(c -> categoriesByPost
+          .computeIfAbsent(pc.getPostId(), k -> new ArrayList<>())
+          .add(c));
+    }
+
+    // media links (already in position order) + the media rows and author avatars they point at
+    List<PostMedia> mediaLinks = postMediaRepo.findByPostIdInOrderByPositionAsc(postIds);
+    Set<UUID> mediaIds = new HashSet<>();
+    mediaLinks.forEach(l -> mediaIds.add(l.getMediaId()));
+    page.stream()
+        .filter(p -> p.getAuthor() != null && p.getAuthor().getAvatarMediaId() != null)
+        .forEach(p -> mediaIds.add(p.getAuthor().getAvatarMediaId()));
+    Map<UUID, MediaCache.MediaRef> mediaById = mediaCache.getAll(mediaIds);
+    Map<UUID, Pending> pending = counters.pending(postIds);
+
+    Map<UUID, List<PostMediaDto>> mediaByPost = new HashMap<>();
+    for (PostMedia link : mediaLinks) {
+      MediaCache.MediaRef m = mediaById.get(link.getMediaId());
+      if (m == null)
+        continue;
+      mediaByPost.computeIfAbsent(link.getPostId(), k -> new ArrayList<>()).add(new PostMediaDto(
+          link.getId(),
+          m.id(),
+          m.url(),
+          m.mediaType(),
+          link.getDescription(),
+          link.getPosition()));
+    }
+
+    return page.stream().map(p -> {
+      MediaCache.MediaRef avatar = p.getAuthor() != null && p.getAuthor().getAvatarMediaId() != null
+          ? mediaById.get(p.getAuthor().getAvatarMediaId())
+          : null;
+      return PostMapper.toDetail(
+          p,
+          avatar != null ? avatar.url() : null,
+          mediaByPost.getOrDefault(p.getId(), List.of()),
+          categoriesByPost.getOrDefault(p.getId(), List.of()),
+          likesWithPending(p.getLikesCount(), pending.get(p.getId())),
+          commentsWithPending(p.getCommentsCount(), pending.get(p.getId())),
+          isLiked.test(p.getId()),
+          isSaved.test(p.getId()));
+    }).toList();
   }
 }
@@ -1,25 +1,37 @@
 package blog.service.posts;
 
 import blog.dto.CommentDto;
+import blog.dto.CommentThreadDto;
+import blog.dto.CursorPageDto;
+import blog.enums.CommentOrder;
 import blog.enums.NotificationType;
 import blog.models.Comment;
-import blog.models.Media;
 import blog.models.Post;
 import blog.models.User;
 import blog.repository.CommentRepository;
-import blog.repository.MediaRepository;
 import blog.repository.PostRepository;
 import blog.repository.UserRepository;
+import blog.service.KeysetCursor;
+import blog.service.MediaCache;
 import blog.service.NotificationService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import lombok.RequiredArgsConstructor;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -27,11 +39,17 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class PostCommentService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_PREVIEW_REPLIES = 10;
+    // replies to a comment this deep become its siblings instead
+    private static final int MAX_DEPTH = 6;
+
     private final UserRepository users;
     private final PostRepository posts;
     private final CommentRepository comments;
-    private final MediaRepository mediaRepo;
+    private final MediaCache mediaCache;
     private final NotificationService notificationService;
+    private final PostCounters counters;
     private final PostValidator validator;
     private final PostSecurityHelper security;
 
@@ -43,11 +61,21 @@ public class PostCommentService {
     }
 
     private Post requirePost(UUID postId) {
-        return posts.findById(postId)
+        return posts.findReadOnlyById(postId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
     }
 
-    public CommentDto addComment(String username, UUID postId, String content) {
+    private Comment requireComment(UUID postId, UUID commentId) {
+        Comment c = comments.findById(commentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Comment not found"));
+        if (!c.getPostId().equals(postId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Comment does not belong to this post");
+        }
+        return c;
+    }
+
+    // parentId null = top-level comment
+    public CommentDto addComment(String username, UUID postId, String content, UUID parentId) {
         User user = requireUser(username);
         Post post = requirePost(postId);
         if ("hidden".equalsIgnoreCase(post.getStatus())) {
@@ -56,22 +84,27 @@ public class PostCommentService {
         content = validator.requireCleanText(content, "Comment", 2000);
 
         Comment c = new Comment();
-        c.setId(UUID.randomUUID());
         c.setPostId(post.getId());
         c.setUserId(user.getId());
         c.setText(content);
         c.setCreatedAt(LocalDateTime.now());
-        comments.saveAndFlush(c);
-
-        int current = post.getCommentsCount() == null ? 0 : post.getCommentsCount();
-        post.setCommentsCount(current + 1);
-        posts.saveAndFlush(post);
+        if (parentId != null) {
+            Comment parent = requireComment(postId, parentId);
+            boolean tooDeep = parent.getDepth() >= MAX_DEPTH;
+            c.setParentId(tooDeep ? parent.getParentId() : parent.getId());
+            c.setDepth((short) (tooDeep ? parent.getDepth() : parent.getDepth() + 1));
+        }
+        // id left to the generator: a preset id would make save() merge and return a different row
+        c = comments.saveAndFlush(c);
+        if (c.getParentId() != null)
+            comments.incrementRepliesCount(c.getParentId());
+        counters.commentAdded(post);
 
         notificationService.notify(post.getAuthor(), user, NotificationType.POST_COMMENTED, post, c.getId());
         String avatarUrl = "svg/avatar.png";
         if (user.getAvatarMediaId() != null) {
-            avatarUrl = mediaRepo.findById(user.getAvatarMediaId())
-                    .map(Media::getUrl)
+            avatarUrl = mediaCache.get(user.getAvatarMediaId())
+                    .map(MediaCache.MediaRef::url)
                     .orElse("svg/avatar.png");
         }
         return new CommentDto(
@@ -81,31 +114,152 @@ public class PostCommentService {
                 user.getUsername(),
                 avatarUrl,
                 c.getText(),
-                c.getCreatedAt().toString());
+                c.getCreatedAt().toString(),
+                c.getParentId(),
+                c.getDepth(),
+                c.getRepliesCount());
     }
 
+    // whole thread, newest first; clients should move to getCommentsPage
     @Transactional(readOnly = true)
     public List<CommentDto> getComments(UUID postId) {
-        return comments.findByPostIdOrderByCreatedAtDesc(postId).stream()
-                .map(c -> {
-                    User user = users.findById(c.getUserId()).orElse(null);
-                    String username = user != null ? user.getUsername() : "user";
-
-                    String avatarUrl = "svg/avatar.png";
-                    if (user != null && user.getAvatarMediaId() != null) {
-                        avatarUrl = mediaRepo.findById(user.getAvatarMediaId())
-                                .map(Media::getUrl)
-                                .orElse("svg/avatar.png");
-                    }
+        KeysetCursor start = KeysetCursor.START;
+        return toDtos(comments.findPageNewestFirst(
+                postId, toLocal(start.createdAt()), start.id(), Pageable.unpaged()));
+    }
+
+    /**
+     * One page of a thread: a single query for the comments with their
+     * authors joined in, plus at most one for avatars not yet in MediaCache.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CommentDto> getCommentsPage(UUID postId, String order, String cursor, int limit) {
+        CommentOrder direction = CommentOrder.parse(order);
+        int size = KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE);
+        PageRequest window = PageRequest.of(0, size + 1); // one extra row tells us whether there is a next page
+
+        List<CommentRepository.CommentRow> rows;
+        if (direction == CommentOrder.OLDEST) {
+            KeysetCursor after = KeysetCursor.decode(cursor, KeysetCursor.START_ASCENDING);
+            rows = comments.findPageOldestFirst(postId, toLocal(after.createdAt()), after.id(), window);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = comments.findPageNewestFirst(postId, toLocal(after.createdAt()), after.id(), window);
+        }
+
+        return KeysetCursor.page(
+                rows,
+                size,
+                PostCommentService::position,
+                this::toDtos);
+    }
+
+    /**
+     * Top-level comments of a post, each with its first {@code replies} direct
+     * replies and a cursor for the rest. Two queries per page (plus at most one
+     * for avatars) however large the discussion; deeper levels are opened
+     * through getRepliesPage.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CommentThreadDto> getThreadPage(UUID postId, String order, String cursor, int limit,
+            int replies) {
+        CommentOrder direction = CommentOrder.parse(order);
+        int size = KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE);
+        int preview = Math.max(0, Math.min(replies, MAX_PREVIEW_REPLIES));
+        PageRequest window = PageRequest.of(0, size + 1);
+
+        List<CommentRepository.CommentRow> rows;
+        if (direction == CommentOrder.OLDEST) {
+            KeysetCursor after = KeysetCursor.decode(cursor, KeysetCursor.START_ASCENDING);
+            rows = comments.findTopLevelPageOldestFirst(postId, toLocal(after.createdAt()), after.id(), window);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = comments.findTopLevelPageNewestFirst(postId, toLocal(after.createdAt()), after.id(), window);
+        }
 
+        return KeysetCursor.page(rows, size, PostCommentService::position, page -> withReplies(page, preview));
+    }
+
+    // direct replies of one comment, oldest first
+    @Transactional(readOnly = true)
+    public CursorPageDto<CommentDto> getRepliesPage(UUID postId, UUID commentId, String cursor, int limit) {
+        int size = KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE);
+        KeysetCursor after = KeysetCursor.decode(cursor, KeysetCursor.START_ASCENDING);
+        return KeysetCursor.page(
+                comments.findRepliesPage(postId, commentId, toLocal(after.createdAt()), after.id(),
+                        PageRequest.of(0, size + 1)),
+                size,
+                PostCommentService::position,
+                this::toDtos);
+    }
+
+    private List<CommentThreadDto> withReplies(List<CommentRepository.CommentRow> top, int preview) {
+        List<UUID> withAnswers = top.stream()
+                .filter(r -> r.getRepliesCount() != null && r.getRepliesCount() > 0)
+                .map(CommentRepository.CommentRow::getId)
+                .toList();
+        List<CommentRepository.CommentRow> firstReplies = preview == 0 || withAnswers.isEmpty()
+                ? List.of()
+                : comments.findFirstReplies(withAnswers, preview);
+
+        // one avatar lookup for the whole page
+        List<CommentRepository.CommentRow> all = new ArrayList<>(top);
+        all.addAll(firstReplies);
+        List<CommentDto> dtos = toDtos(all);
+
+        Map<UUID, List<CommentDto>> repliesByParent = new HashMap<>();
+        Map<UUID, CommentRepository.CommentRow> lastReply = new HashMap<>();
+        for (int i = 0; i < firstReplies.size(); i++) {
+            CommentRepository.CommentRow r = firstReplies.get(i);
+            repliesByParent.computeIfAbsent(r.getParentId(), k -> new ArrayList<>()).add(dtos.get(top.size() + i));
+            lastReply.put(r.getParentId(), r); // rows come oldest first per parent
+        }
+
+        List<CommentThreadDto> out = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            CommentDto comment = dtos.get(i);
+            List<CommentDto> shown = repliesByParent.getOrDefault(comment.id(), List.of());
+            String more = null;
+            if (shown.size() < comment.repliesCount()) {
+                CommentRepository.CommentRow last = lastReply.get(comment.id());
+                more = (last != null ? position(last) : KeysetCursor.START_ASCENDING).encode();
+            }
+            out.add(new CommentThreadDto(comment, shown, more));
+        }
+        return out;
+    }
+
+    private static KeysetCursor position(CommentRepository.CommentRow r) {
+        return new KeysetCursor(r.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant(), r.getId());
+    }
+
+    // created_at is a zone-less TIMESTAMP read as LocalDateTime; Instants map to it in the JVM zone
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    private List<CommentDto> toDtos(List<CommentRepository.CommentRow> rows) {
+        Set<UUID> avatarIds = new HashSet<>();
+        rows.forEach(r -> {
+            if (r.getAvatarMediaId() != null)
+                avatarIds.add(r.getAvatarMediaId());
+        });
+        Map<UUID, MediaCache.MediaRef> avatars = mediaCache.getAll(avatarIds);
+
+        return rows.stream()
+                .map(r -> {
+                    MediaCache.MediaRef avatar = r.getAvatarMediaId() != null ? avatars.get(r.getAvatarMediaId()) : null;
                     return new CommentDto(
-                            c.getId(),
-                            c.getPostId(),
-                            c.getUserId(),
-                            username,
-                            avatarUrl,
-                            c.getText(),
-                            c.getCreatedAt().toString());
+                            r.getId(),
+                            r.getPostId(),
+                            r.getUserId(),
+                            r.getUsername() != null ? r.getUsername() : "user",
+                            avatar != null ? avatar.url() : "svg/avatar.png",
+                            r.getText(),
+                            r.getCreatedAt().toString(),
+                            r.getParentId(),
+                            r.getDepth() != null ? r.getDepth() : 0,
+                            r.getRepliesCount() != null ? r.getRepliesCount() : 0);
                 })
                 .toList();
     }
@@ -113,13 +267,7 @@ public class PostCommentService {
     public void deleteComment(String username, UUID postId, UUID commentId) {
         User user = requireUser(username);
 
-        Comment c = comments.findById(commentId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Comment not found"));
-
-        if (!c.getPostId().equals(postId)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Comment does not belong to this post");
-        }
-
+        Comment c = requireComment(postId, commentId);
         Post post = requirePost(postId);
 
         boolean isCommentOwner = c.getUserId().equals(user.getId());
@@ -128,11 +276,11 @@ public class PostCommentService {
         if (!isCommentOwner && !isPostOwner) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Forbidden");
         }
-        notificationService.deleteCommentNotification(postId, commentId);
-        comments.delete(c);
-
-        int current = post.getCommentsCount() == null ? 0 : post.getCommentsCount();
-        post.setCommentsCount(Math.max(0, current - 1));
-        posts.saveAndFlush(post);
+        // no reply can commit under the subtree from here on, see lockSubtree
+        comments.lockSubtree(commentId);
+        // replies go with the comment, and so do their notifications (before the rows they match on)
+        notificationService.deleteCommentNotifications(postId, commentId);
+        // only the request that actually removed the rows decrements the count
+        counters.deleteComment(commentId);
     }
 }
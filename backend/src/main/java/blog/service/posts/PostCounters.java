@@ -0,0 +1,216 @@
+package blog.service.posts;
+
+import blog.models.Post;
+import blog.repository.CommentRepository;
+import blog.repository.LikeRepository;
+import blog.repository.PostCounterShardRepository;
+import blog.repository.PostCounterShardRepository.Pending;
+import blog.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Single place where like / comment counters change.
+ *
+ * counters.mode=direct updates posts.likes_count / comments_count in the same
+ * statement as the like or comment row. counters.mode=sharded adds the delta
+ * to one of counters.shards rows in post_counter_shards instead, so a viral
+ * post does not serialize every writer on its posts row; those deltas are
+ * folded back periodically and overlaid on reads until then.
+ * counters.mode=buffered writes the like or comment row plus a marker for
+ * its post and keeps the delta in memory (CounterBuffer) for reads until the
+ * next fold, which recounts every touched post from its like / comment rows
+ * in one UPDATE; the buffer is also drained on shutdown, which then clears
+ * the markers. The first fold after a start recounts the posts still marked
+ * (a crash lost their deltas) and those with shards left by a sharded run,
+ * so counters are at most one interval behind, never wrong for good. Markers
+ * left when starting in another mode wait for the next buffered start.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostCounters {
+
+  private final LikeRepository likes;
+  private final CommentRepository comments;
+  private final PostRepository posts;
+  private final PostCounterShardRepository shards;
+  private final CounterBuffer buffer;
+
+  // "direct", "sharded" or "buffered"
+  @Value("${counters.mode:direct}")
+  private String mode;
+
+  @Value("${counters.shards:16}")
+  private int shardCount;
+
+  // post_counter_shards may hold rows from an earlier run in sharded mode until the first fold here
+  private volatile boolean shardLeftovers = true;
+
+  // buffered mode: marked and leftover-shard posts are recounted once, before the first flush
+  private volatile boolean recovered;
+
+  /*
+   * ============================================================
+   * WRITES (return true when something actually changed)
+   * ============================================================
+   */
+
+  public boolean like(UUID userId, Post post) {
+    if (buffered())
+      return buffered(shards.addLikeMarked(userId, post.getId()).isPresent(), post, 1, 0);
+    if (sharded())
+      return shards.addLike(userId, post.getId(), shard());
+    return likes.addLike(userId, post.getId()).map(count -> {
+      post.setLikesCount(count);
+      return true;
+    }).orElse(false);
+  }
+
+  public boolean unlike(UUID userId, Post post) {
+    if (buffered())
+      return buffered(shards.removeLikeMarked(userId, post.getId()).isPresent(), post, -1, 0);
+    if (sharded())
+      return shards.removeLike(userId, post.getId(), shard());
+    return likes.removeLike(userId, post.getId()).map(count -> {
+      post.setLikesCount(count);
+      return true;
+    }).orElse(false);
+  }
+
+  // the comment row must already be flushed
+  public void commentAdded(Post post) {
+    if (buffered()) {
+      shards.markDirty(post.getId());
+      buffered(true, post, 0, 1);
+    } else if (sharded())
+      shards.addComment(post.getId(), shard());
+    else
+      posts.incrementCommentsCount(post.getId()).ifPresent(post::setCommentsCount);
+  }
+
+  // deletes the comment and its replies; only the call that removed them changes the count
+  public boolean deleteComment(UUID commentId) {
+    if (buffered()) {
+      List<UUID> removed = shards.deleteCommentMarked(commentId); // one entry per comment, replies included
+      if (removed.isEmpty())
+        return false;
+      buffer.add(removed.get(0), 0, -removed.size());
+      return true;
+    }
+    if (sharded())
+      return shards.deleteComment(commentId, shard());
+    return comments.deleteAndCount(commentId).isPresent();
+  }
+
+  /*
+   * ============================================================
+   * READS
+   * ============================================================
+   */
+
+  // deltas not yet folded into posts; add them to the entity counts when rendering
+  // (no statement in direct mode once leftover shards are folded)
+  public Map<UUID, Pending> pending(Collection<UUID> postIds) {
+    Map<UUID, Pending> pending = new HashMap<>();
+    if (sharded() || shardLeftovers)
+      pending.putAll(shards.pending(postIds));
+    if (buffered())
+      buffer.peek(postIds).forEach((id, p) -> pending.merge(id, p, Pending::plus));
+    return pending;
+  }
+
+  /*
+   * ============================================================
+   * FOLD (runs in every mode so switching back to direct drains leftovers)
+   * ============================================================
+   */
+
+  @Scheduled(fixedDelayString = "${counters.fold-interval-ms:5000}")
+  public void fold() {
+    if (buffered()) {
+      if (!recovered)
+        recover();
+      flushBuffer();
+      return;
+    }
+    flushBuffer(); // a buffer filled before a switch away from buffered mode
+    if (!sharded() && !shardLeftovers)
+      return;
+    int folded = shards.fold();
+    if (folded > 0)
+      log.debug("Folded counter shards into {} posts", folded);
+    if (!sharded())
+      shardLeftovers = false; // nothing writes shards in this mode
+  }
+
+  // recounts posts a crashed buffered run marked and drops deltas a sharded run left behind
+  public void recover() {
+    int fixed = shards.recountDirty();
+    recovered = true;
+    shardLeftovers = false;
+    if (fixed > 0)
+      log.info("Recounted counters of {} posts on startup", fixed);
+  }
+
+  // the web server has stopped taking requests by now, so no marked write can slip past the flush
+  @PreDestroy
+  void drainOnShutdown() {
+    if (flushBuffer() && buffered() && recovered)
+      shards.clearMarkers();
+  }
+
+  // true when nothing is left in the buffer
+  private boolean flushBuffer() {
+    Map<UUID, Pending> batch = buffer.drain();
+    if (batch.isEmpty())
+      return true;
+    try {
+      shards.recount(batch.keySet());
+      log.debug("Recounted buffered counters for {} posts", batch.size());
+      return true;
+    } catch (RuntimeException e) {
+      buffer.restore(batch);
+      log.warn("Could not flush buffered counters for {} posts, will retry", batch.size(), e);
+      return false;
+    }
+  }
+
+  // the entity is read-only, so patching it only affects this response; the
+  // delta itself reaches the buffer after commit
+  private boolean buffered(boolean changed, Post post, int likeDelta, int commentDelta) {
+    if (!changed)
+      return false;
+    post.setLikesCount(Math.max(0, count(post.getLikesCount()) + likeDelta));
+    post.setCommentsCount(Math.max(0, count(post.getCommentsCount()) + commentDelta));
+    buffer.add(post.getId(), likeDelta, commentDelta);
+    return true;
+  }
+
+  private static int count(Integer value) {
+    return value != null ? value : 0;
+  }
+
+  private boolean buffered() {
+    return "buffered".equalsIgnoreCase(mode);
+  }
+
+  private boolean sharded() {
+    return "sharded".equalsIgnoreCase(mode);
+  }
+
+  private int shard() {
+    return ThreadLocalRandom.current().nextInt(Math.max(1, shardCount));
+  }
+}
@@ -1,9 +1,9 @@
 package blog.service.posts;
 
 import blog.dto.PostDetailDto;
-import blog.enums.NotificationType;
 import blog.models.*;
 import blog.repository.*;
+import blog.service.CategoryCatalog;
 import blog.service.LocalMediaStorage;
 import blog.service.NotificationService;
 import org.springframework.http.HttpStatus;
@@ -34,11 +34,13 @@ public class PostCrudService {
   private final LocalMediaStorage mediaStorage;
   private final PostMediaRepository postMediaRepository;
 
-  private final CategoryRepository categories;
+  private final CategoryCatalog categories;
   private final PostCategoryRepository postCategories;
 
   private final NotificationService notificationService;
-  private final SubscriptionRepository subscriptions;
+  private final HomeTimelineRepository homeTimeline;
+  private final AuthorRecentPosts recentPosts;
+  private final ExploreSnapshot explore;
 
   private final PostValidator validator;
   private final PostSecurityHelper security;
@@ -126,18 +128,10 @@ public class PostCrudService {
     post.setBody(body);
     post.setStatus("active");
     post.setCreatedAt(Instant.now());
-    post = posts.save(post);
-
-    // ---- notify subscribers
-    List<UUID> subscriberIds = subscriptions.findSubscriberIdsBySubscribedToId(user.getId());
-    if (subscriberIds != null && !subscriberIds.isEmpty()) {
-      List<User> subs = users.findAllById(subscriberIds);
-      for (User target : subs) {
-        if (target.getId().equals(user.getId()))
-          continue;
-        notificationService.notify(target, user, NotificationType.FOLLOWING_POSTED, post, null);
-      }
-    }
+    post = posts.saveAndFlush(post); // the fan-out job row references it
+
+    // ---- notify subscribers (in the background, however many there are)
+    notificationService.notifyFollowers(user, post);
 
     // ---- MEDIA
     if (hasMedia) {
@@ -176,6 +170,11 @@ public class PostCrudService {
     posts.flush();
     postMediaRepository.flush();
 
+    // ---- fan out to followers' home timelines (post row must be flushed first)
+    homeTimeline.fanOut(post.getId());
+    recentPosts.onCreated(post);
+    explore.onCreated(post);
+
     Post fresh = requirePost(post.getId());
     return assembler.toDetail(fresh, (UUID) null);
   }
@@ -365,6 +364,8 @@ public class PostCrudService {
 
     // ----- CATEGORIES (replace all)
     replaceCategories(postId, categoryIds);
+    recentPosts.onUpdated(post);
+    explore.onUpdated(post);
 
     return assembler.toDetail(post, user.getId());
   }
@@ -387,6 +388,8 @@ public class PostCrudService {
     postCategories.deleteByPostId(postId);
 
     posts.delete(post);
+    recentPosts.onRemoved(user.getId(), postId);
+    explore.onRemoved(postId);
   }
 
   /*
@@ -404,7 +407,7 @@ public class PostCrudService {
     for (UUID cid : categoryIds) {
       if (cid == null)
         continue;
-      if (!categories.existsById(cid))
+      if (!categories.exists(cid))
         continue;
 
       PostCategory pc = new PostCategory();
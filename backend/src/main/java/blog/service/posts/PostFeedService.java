@@ -1,67 +1,270 @@
 package blog.service.posts;
 
+import blog.dto.CursorPageDto;
 import blog.dto.PostDetailDto;
+import blog.dto.PostSummaryDto;
+import blog.enums.FeedSort;
 import blog.models.Post;
 import blog.models.User;
 import blog.repository.PostRepository;
-import blog.repository.SavedPostRepository;
 import blog.repository.SubscriptionRepository;
 import blog.repository.UserRepository;
+import blog.service.KeysetCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import lombok.RequiredArgsConstructor;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static blog.service.posts.AuthorRecentPosts.NEWEST_FIRST;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class PostFeedService {
 
+  private static final int MAX_PAGE_SIZE = 50;
+  private static final int LEGACY_CHUNK = 500;
+
   private final PostRepository posts;
   private final UserRepository users;
-  private final SavedPostRepository savedPosts;
   private final PostAssembler assembler;
   private final SubscriptionRepository subs;
+  private final AuthorRecentPosts recentPosts;
+  private final ExploreSnapshot explore;
 
-
+  // where the first feed page comes from: "timeline" (inbox table) or "memory" (author rings)
+  @Value("${feed.source:timeline}")
+  private String feedSource;
 
   private User requireUser(String username) {
     return users.findByUsername(username)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
   }
 
+  // unpaginated feed kept for existing clients: the whole feed, read as consecutive keyset pages
   public List<PostDetailDto> getFeedForUser(String username, UUID categoryId, String sort) {
     User user = requireUser(username);
     UUID userId = user.getId();
+    FeedSort order = FeedSort.parse(sort);
 
-    // ✅ ids of people I follow
-    List<UUID> subscribedToIds = subs.findSubscribedToIdsBySubscriberId(userId);
+    List<Post> all = new ArrayList<>();
+    KeysetCursor after = KeysetCursor.START;
+    while (true) {
+      List<Post> rows = fetchPage(userId, categoryId, order, after, LEGACY_CHUNK);
+      all.addAll(rows);
+      if (rows.size() < LEGACY_CHUNK)
+        break;
+      Post last = rows.get(rows.size() - 1);
+      after = new KeysetCursor(order.score(last), last.getCreatedAt(), last.getId());
+    }
+    return assembler.toDetails(all, userId);
+  }
+
+  public CursorPageDto<PostDetailDto> getFeedPage(String username, UUID categoryId, String sort, String cursor,
+      int limit) {
+    User user = requireUser(username);
+    UUID userId = user.getId();
+    FeedSort order = FeedSort.parse(sort);
+    KeysetCursor after = KeysetCursor.decode(cursor);
+    int size = KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE);
+
+    // one extra row tells us whether there is a next page
+    List<Post> rows = fetchPage(userId, categoryId, order, after, size + 1);
+
+    return KeysetCursor.page(
+        rows,
+        size,
+        p -> new KeysetCursor(order.score(p), p.getCreatedAt(), p.getId()),
+        page -> assembler.toDetails(page, userId));
+  }
+
+  // same page as getFeedPage, as lightweight list cards
+  public CursorPageDto<PostSummaryDto> getFeedSummaryPage(String username, UUID categoryId, String sort,
+      String cursor, int limit) {
+    User user = requireUser(username);
+    UUID userId = user.getId();
+    FeedSort order = FeedSort.parse(sort);
+    KeysetCursor after = KeysetCursor.decode(cursor);
+    int size = KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE);
+
+    List<PostRepository.PostSummaryRef> rows = fetchSummaryPage(userId, categoryId, order, after, size + 1);
+
+    return KeysetCursor.page(
+        rows,
+        size,
+        r -> new KeysetCursor(order.score(r.getLikesCount(), r.getSavesCount()), r.getCreatedAt(), r.getId()),
+        page -> assembler.toSummaries(page, userId));
+  }
+
+  /*
+   * Explore: every active post, newest first, for any viewer (null = anonymous).
+   * Pages inside ExploreSnapshot's window take their ids from memory and only
+   * load those rows by primary key; deeper pages are a keyset query.
+   */
+  public CursorPageDto<PostDetailDto> getExplorePage(UUID viewerId, String cursor, int limit) {
+    KeysetCursor after = KeysetCursor.decode(cursor);
+    int size = KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE);
+    PageRequest window = PageRequest.of(0, size + 1);
+
+    // an id whose row is gone or no longer active would leave the page short: use the table then
+    List<Post> rows = explore.after(after, size + 1)
+        .flatMap(ids -> complete(ids,
+            ids.isEmpty() ? List.<Post>of() : posts.findWithAuthorByIdIn(ids).stream()
+                .filter(p -> "active".equals(p.getStatus())).toList(),
+            Post::getId))
+        .orElseGet(() -> posts.findExplorePage(after.createdAt(), after.id(), window));
+
+    return KeysetCursor.page(
+        rows,
+        size,
+        p -> new KeysetCursor(p.getCreatedAt(), p.getId()),
+        page -> assembler.toDetails(page, viewerId));
+  }
 
-    // ✅ If I follow nobody → empty feed
+  public CursorPageDto<PostSummaryDto> getExploreSummaryPage(UUID viewerId, String cursor, int limit) {
+    KeysetCursor after = KeysetCursor.decode(cursor);
+    int size = KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE);
+    PageRequest window = PageRequest.of(0, size + 1);
+
+    List<PostRepository.PostSummaryRef> rows = explore.after(after, size + 1)
+        .flatMap(ids -> complete(ids,
+            ids.isEmpty() ? List.<PostRepository.PostSummaryRef>of() : posts.findSummariesByIdIn(ids),
+            PostRepository.PostSummaryRef::getId))
+        .orElseGet(() -> posts.findSummaryExplorePage(after.createdAt(), after.id(), window));
+
+    return KeysetCursor.page(
+        rows,
+        size,
+        r -> new KeysetCursor(r.getCreatedAt(), r.getId()),
+        page -> assembler.toSummaries(page, viewerId));
+  }
+
+  // every sort mode is a single indexed keyset query; nothing is sorted in the JVM
+  private List<Post> fetchPage(UUID userId, UUID categoryId, FeedSort order, KeysetCursor after, int count) {
+    PageRequest window = PageRequest.of(0, count);
+
+    return switch (order) {
+      case LIKES -> categoryId == null
+          ? posts.findFeedPageByLikes(userId, after.score(), after.createdAt(), after.id(), window)
+          : posts.findFeedPageByLikesAndCategory(
+              userId, categoryId, after.score(), after.createdAt(), after.id(), window);
+      case SAVED -> categoryId == null
+          ? posts.findFeedPageBySaves(userId, after.score(), after.createdAt(), after.id(), window)
+          : posts.findFeedPageBySavesAndCategory(
+              userId, categoryId, after.score(), after.createdAt(), after.id(), window);
+      case NEW -> {
+        if (categoryId != null) {
+          yield posts.findFeedPageForSubscriberByCategoryExcludeMe(
+              userId, categoryId, "active", after.createdAt(), after.id(), window);
+        }
+        // a ring id whose row is gone or no longer active would leave the page short: use the table then
+        Optional<List<Post>> fromMemory = (after == KeysetCursor.START && "memory".equals(feedSource))
+            ? firstPageIdsFromMemory(userId, count).flatMap(ids -> complete(ids, ids.isEmpty() ? List.of()
+                : posts.findWithAuthorByIdIn(ids).stream().filter(p -> "active".equals(p.getStatus())).toList(),
+                Post::getId))
+            : Optional.empty();
+
+        // ✅ materialized inbox, filled on post creation / follow
+        yield aboveHorizon(userId, after, count,
+            fromMemory.orElseGet(() -> posts.findHomeTimelinePage(userId, after.createdAt(), after.id(), window)),
+            p -> new AuthorRecentPosts.Entry(p.getId(), p.getCreatedAt()),
+            (from, rest) -> posts.findFeedPage(userId, from.createdAt(), from.id(), rest));
+      }
+    };
+  }
+
+  /*
+   * A follow only backfills the author's latest posts (SubscriptionService), so
+   * the inbox is complete down to the newest timeline horizon among the
+   * reader's subscriptions. Rows below it are dropped and the page is filled
+   * from the joined subscriptions query, so NEW holds the same posts as LIKES
+   * and SAVED.
+   */
+  private <T> List<T> aboveHorizon(UUID userId, KeysetCursor after, int count, List<T> inbox,
+      Function<T, AuthorRecentPosts.Entry> position, BiFunction<KeysetCursor, PageRequest, List<T>> joined) {
+    Optional<AuthorRecentPosts.Entry> horizon = subs.findTimelineHorizons(userId, PageRequest.of(0, 1)).stream()
+        .findFirst()
+        .map(s -> new AuthorRecentPosts.Entry(s.getTimelineHorizonId(), s.getTimelineHorizonAt()));
+    if (horizon.isEmpty())
+      return inbox;
+
+    List<T> rows = new ArrayList<>(inbox.stream()
+        .filter(r -> NEWEST_FIRST.compare(position.apply(r), horizon.get()) <= 0)
+        .toList());
+    if (rows.size() < count) {
+      KeysetCursor from = after;
+      if (!rows.isEmpty()) {
+        AuthorRecentPosts.Entry last = position.apply(rows.get(rows.size() - 1));
+        from = new KeysetCursor(last.createdAt(), last.postId());
+      }
+      rows.addAll(joined.apply(from, PageRequest.of(0, count - rows.size())));
+    }
+    return rows;
+  }
+
+  // k-way merge of followed authors' rings; the DB is only used to hydrate the ids
+  private Optional<List<UUID>> firstPageIdsFromMemory(UUID userId, int count) {
+    List<UUID> subscribedToIds = subs.findSubscribedToIdsBySubscriberId(userId);
     if (subscribedToIds.isEmpty()) {
-      return List.of();
+      return Optional.of(List.of());
     }
+    return recentPosts.newest(subscribedToIds, count);
+  }
 
-    // ✅ ONLY active posts from followed users + exclude my posts
-    List<Post> base = (categoryId != null)
-        ? posts.findFeedByAuthorsCategoryAndStatusExcludeMe(subscribedToIds, categoryId, "active", userId)
-        : posts.findFeedByAuthorsAndStatusExcludeMe(subscribedToIds, "active", userId);
-
-    Comparator<Post> comparator = switch (sort) {
-      case "likes" ->
-        Comparator.comparing(p -> Optional.ofNullable(p.getLikesCount()).orElse(0), Comparator.reverseOrder());
-      case "saved" -> Comparator.comparing(p -> savedPosts.countByPostId(p.getId()), Comparator.reverseOrder());
-      case "new" -> Comparator.comparing(Post::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
-      default -> Comparator.comparing(Post::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
-    };
+  // rows in the order of ids, or empty when any id found no row
+  private static <T> Optional<List<T>> complete(List<UUID> ids, List<T> rows, Function<T, UUID> id) {
+    List<T> ordered = inOrder(ids, rows, id);
+    return ordered.size() == ids.size() ? Optional.of(ordered) : Optional.empty();
+  }
+
+  // rows back in the order of ids (hidden / deleted posts simply drop out)
+  private static <T> List<T> inOrder(List<UUID> ids, List<T> rows, Function<T, UUID> id) {
+    Map<UUID, T> byId = rows.stream().collect(Collectors.toMap(id, Function.identity()));
+    return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+  }
 
-    base.sort(comparator);
+  private List<PostRepository.PostSummaryRef> fetchSummaryPage(UUID userId, UUID categoryId, FeedSort order,
+      KeysetCursor after, int count) {
+    PageRequest window = PageRequest.of(0, count);
 
-    return base.stream().map(p -> assembler.toDetail(p, userId)).toList();
+    return switch (order) {
+      case LIKES -> categoryId == null
+          ? posts.findSummaryFeedPageByLikes(userId, after.score(), after.createdAt(), after.id(), window)
+          : posts.findSummaryFeedPageByLikesAndCategory(
+              userId, categoryId, after.score(), after.createdAt(), after.id(), window);
+      case SAVED -> categoryId == null
+          ? posts.findSummaryFeedPageBySaves(userId, after.score(), after.createdAt(), after.id(), window)
+          : posts.findSummaryFeedPageBySavesAndCategory(
+              userId, categoryId, after.score(), after.createdAt(), after.id(), window);
+      case NEW -> {
+        if (categoryId != null) {
+          yield posts.findSummaryFeedPageByCategory(userId, categoryId, after.createdAt(), after.id(), window);
+        }
+        Optional<List<PostRepository.PostSummaryRef>> fromMemory =
+            (after == KeysetCursor.START && "memory".equals(feedSource))
+                ? firstPageIdsFromMemory(userId, count).map(ids -> inOrder(ids,
+                    ids.isEmpty() ? List.of() : posts.findSummariesByIdIn(ids),
+                    PostRepository.PostSummaryRef::getId))
+                : Optional.empty();
+
+        yield aboveHorizon(userId, after, count,
+            fromMemory.orElseGet(
+                () -> posts.findSummaryHomeTimelinePage(userId, after.createdAt(), after.id(), window)),
+            r -> new AuthorRecentPosts.Entry(r.getId(), r.getCreatedAt()),
+            (from, rest) -> posts.findSummaryFeedPage(userId, from.createdAt(), from.id(), rest));
+      }
+    };
   }
 }
@@ -2,18 +2,18 @@ package blog.service.posts;
 
 import blog.dto.PostDetailDto;
 import blog.enums.NotificationType;
-import blog.models.Like;
 import blog.models.Post;
 import blog.models.User;
-import blog.repository.LikeRepository;
 import blog.repository.PostRepository;
 import blog.repository.UserRepository;
+import blog.service.EngagementIndex;
 import blog.service.NotificationService;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import lombok.RequiredArgsConstructor;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -23,9 +23,10 @@ public class PostLikeService {
 
   private final PostRepository posts;
   private final UserRepository users;
-  private final LikeRepository likes;
+  private final PostCounters counters;
   private final NotificationService notificationService;
   private final PostAssembler assembler;
+  private final EngagementIndex engagement;
 
 
 
@@ -35,59 +36,55 @@ public class PostLikeService {
   }
 
   private Post requirePost(UUID postId) {
-    return posts.findById(postId)
+    return posts.findReadOnlyById(postId)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
   }
 
-  public void likePost(String username, UUID postId) {
-    User user = requireUser(username);
+  private Post requireVisiblePost(UUID postId) {
     Post post = requirePost(postId);
     if ("hidden".equalsIgnoreCase(post.getStatus())) {
       throw new ResponseStatusException(HttpStatus.GONE, "Post is hidden");
     }
-    if (likes.findByUserIdAndPostId(user.getId(), postId).isPresent())
-      return;
-
-    Like like = new Like();
-    like.setUserId(user.getId());
-    like.setPostId(postId);
-    likes.save(like);
-
-    int newCount = likes.countByPostId(postId);
-    post.setLikesCount(Math.max(newCount, 0));
-    posts.saveAndFlush(post);
+    return post;
+  }
 
-    notificationService.notify(post.getAuthor(), user, NotificationType.POST_LIKED, post, null);
+  public void likePost(String username, UUID postId) {
+    like(requireUser(username), postId);
   }
 
   public void unlikePost(String username, UUID postId) {
-    User user = requireUser(username);
-    Post post = requirePost(postId);
-    if ("hidden".equalsIgnoreCase(post.getStatus())) {
-      throw new ResponseStatusException(HttpStatus.GONE, "Post is hidden");
-    }
-    likes.findByUserIdAndPostId(user.getId(), postId).ifPresent(like -> {
-      likes.delete(like);
-
-      int newCount = likes.countByPostId(postId);
-      post.setLikesCount(Math.max(newCount, 0));
-      posts.saveAndFlush(post);
-    });
+    unlike(requireUser(username), postId);
   }
 
+  // the index only sees this change after commit, so the flag is set from what just happened
   public PostDetailDto likeAndReturn(String username, UUID postId) {
     User user = requireUser(username);
-    Post post = requirePost(postId);
-
-    likePost(username, postId);
-
-    return assembler.toDetail(post, user.getId());
+    return assembler.toDetail(like(user, postId), true, isSaved(user, postId));
   }
 
   public PostDetailDto unlikeAndReturn(String username, UUID postId) {
     User user = requireUser(username);
-    unlikePost(username, postId);
-    Post post = requirePost(postId);
-    return assembler.toDetail(post, user.getId());
+    return assembler.toDetail(unlike(user, postId), false, isSaved(user, postId));
+  }
+
+  private boolean isSaved(User user, UUID postId) {
+    return engagement.savedAmong(user.getId(), List.of(postId)).contains(postId);
+  }
+
+  // one statement inserts the like and bumps the counter; a repeated click changes nothing
+  private Post like(User user, UUID postId) {
+    Post post = requireVisiblePost(postId);
+    if (counters.like(user.getId(), post)) {
+      engagement.onLiked(user.getId(), postId, true);
+      notificationService.notify(post.getAuthor(), user, NotificationType.POST_LIKED, post, null);
+    }
+    return post;
+  }
+
+  private Post unlike(User user, UUID postId) {
+    Post post = requireVisiblePost(postId);
+    if (counters.unlike(user.getId(), post))
+      engagement.onLiked(user.getId(), postId, false);
+    return post;
   }
 }
@@ -0,0 +1,51 @@
+package blog.service.posts;
+
+import blog.dto.PostPageDto;
+import blog.models.Post;
+import blog.models.User;
+import blog.repository.PostRepository;
+import blog.service.users.CurrentUserService;
+import blog.service.users.UserProfileService;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * The post screen in one request: what getOne, the first comment page and
+ * the author profile return separately, with the viewer resolved and
+ * visibility checked once, inside a single read-only transaction.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class PostPageService {
+
+  private static final int FIRST_COMMENTS = 20;
+  private static final int FIRST_REPLIES = 3;
+
+  private final PostRepository posts;
+  private final PostSecurityHelper security;
+  private final PostAssembler assembler;
+  private final PostCommentService comments;
+  private final UserProfileService profiles;
+  private final CurrentUserService currentUsers;
+
+  public PostPageDto getPage(UUID postId, Authentication auth) {
+    User viewer = currentUsers.getCurrentUserOrNull(auth);
+    UUID viewerId = viewer != null ? viewer.getId() : null;
+
+    Post post = posts.findWithAuthorById(postId)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
+    security.assertVisibleToUser(post, viewerId);
+
+    return new PostPageDto(
+        assembler.toDetail(post, viewerId),
+        comments.getThreadPage(postId, "newest", null, FIRST_COMMENTS, FIRST_REPLIES),
+        profiles.getProfileCard(post.getAuthor(), viewer));
+  }
+}
@@ -1,10 +1,13 @@
 package blog.service.posts;
 
+import blog.dto.CursorPageDto;
 import blog.dto.PostDetailDto;
-import blog.models.Like;
+import blog.dto.PostSummaryDto;
 import blog.models.Post;
-import blog.models.SavedPost;
 import blog.repository.*;
+import blog.service.KeysetCursor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,15 +15,16 @@ import org.springframework.web.server.ResponseStatusException;
 import lombok.RequiredArgsConstructor;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.BiFunction;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class PostReadService {
 
+  private static final int MAX_PAGE_SIZE = 50;
+
   private final PostRepository posts;
-  private final LikeRepository likes;
-  private final SavedPostRepository savedPosts;
   private final PostSecurityHelper security;
   private final PostAssembler assembler;
 
@@ -37,36 +41,110 @@ public class PostReadService {
     return assembler.toDetail(post, currentUserId);
   }
 
-  public List<PostDetailDto> getPostsByAuthor(UUID userId) {
+  // viewerId may be null (anonymous): flags are then false
+  public List<PostDetailDto> getPostsByAuthor(UUID userId, UUID viewerId) {
     List<Post> result = posts.findByAuthorIdAndStatusOrderByCreatedAtDesc(userId, "active");
-    return result.stream().map(p -> assembler.toDetail(p, false, false)).toList();
+    return assembler.toDetails(result, viewerId);
   }
 
-  public List<PostDetailDto> getLikedPostsForUser(UUID userId) {
-    var liked = likes.findByUserId(userId);
-    var postIds = liked.stream().map(Like::getPostId).toList();
-    if (postIds.isEmpty()) return List.of();
+  public CursorPageDto<PostDetailDto> getPostsByAuthorPage(UUID userId, UUID viewerId, String cursor, int limit) {
+    KeysetCursor after = KeysetCursor.decode(cursor);
+    int size = KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE);
+    return KeysetCursor.page(
+        posts.findAuthorPage(userId, after.createdAt(), after.id(), PageRequest.of(0, size + 1)),
+        size,
+        p -> new KeysetCursor(p.getCreatedAt(), p.getId()),
+        rows -> assembler.toDetails(rows, viewerId));
+  }
 
-    return posts.findByIdInAndStatusOrderByCreatedAtDesc(postIds, "active")
-        .stream()
-        .map(p -> {
-          boolean isSaved = savedPosts.findByUserIdAndPostId(userId, p.getId()).isPresent();
-          return assembler.toDetail(p, true, isSaved);
-        })
-        .toList();
+  public CursorPageDto<PostSummaryDto> getPostSummariesByAuthorPage(UUID userId, UUID viewerId, String cursor,
+      int limit) {
+    KeysetCursor after = KeysetCursor.decode(cursor);
+    int size = KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE);
+    return KeysetCursor.page(
+        posts.findSummaryAuthorPage(userId, after.createdAt(), after.id(), PageRequest.of(0, size + 1)),
+        size,
+        r -> new KeysetCursor(r.getCreatedAt(), r.getId()),
+        rows -> assembler.toSummaries(rows, viewerId));
+  }
+
+  // whole lists, newest post first (the cursor endpoints page by when the post was liked / saved)
+  public List<PostDetailDto> getLikedPostsForUser(UUID userId) {
+    return assembler.toDetails(posts.findLikedByUser(userId), userId);
   }
 
   public List<PostDetailDto> getSavedPostsForUser(UUID userId) {
-    var saved = savedPosts.findByUserId(userId);
-    var postIds = saved.stream().map(SavedPost::getPostId).toList();
-    if (postIds.isEmpty()) return List.of();
-
-    return posts.findByIdInAndStatusOrderByCreatedAtDesc(postIds, "active")
-        .stream()
-        .map(p -> {
-          boolean isLiked = likes.findByUserIdAndPostId(userId, p.getId()).isPresent();
-          return assembler.toDetail(p, isLiked, true);
-        })
-        .toList();
+    return assembler.toDetails(posts.findSavedByUser(userId), userId);
+  }
+
+  // ---- cursor pages: one join of likes / saved_posts to posts per page
+
+  public CursorPageDto<PostDetailDto> getLikedPostsPage(UUID userId, String cursor, int limit) {
+    return likedPage(userId, cursor, KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE));
+  }
+
+  public CursorPageDto<PostDetailDto> getSavedPostsPage(UUID userId, String cursor, int limit) {
+    return savedPage(userId, cursor, KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE));
+  }
+
+  public CursorPageDto<PostSummaryDto> getLikedPostSummariesPage(UUID userId, String cursor, int limit) {
+    return likedSummaryPage(userId, cursor, KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE));
+  }
+
+  public CursorPageDto<PostSummaryDto> getSavedPostSummariesPage(UUID userId, String cursor, int limit) {
+    return savedSummaryPage(userId, cursor, KeysetCursor.clampLimit(limit, MAX_PAGE_SIZE));
+  }
+
+  private CursorPageDto<PostDetailDto> likedPage(UUID userId, String cursor, int size) {
+    return markedPage(userId, cursor, size,
+        (after, window) -> posts.findLikedPage(userId, after.createdAt(), after.id(), window));
+  }
+
+  private CursorPageDto<PostDetailDto> savedPage(UUID userId, String cursor, int size) {
+    return markedPage(userId, cursor, size,
+        (after, window) -> posts.findSavedPage(userId, after.createdAt(), after.id(), window));
+  }
+
+  private CursorPageDto<PostSummaryDto> likedSummaryPage(UUID userId, String cursor, int size) {
+    return markedSummaryPage(userId, cursor, size,
+        (after, window) -> posts.findSummaryLikedPage(userId, after.createdAt(), after.id(), window));
+  }
+
+  private CursorPageDto<PostSummaryDto> savedSummaryPage(UUID userId, String cursor, int size) {
+    return markedSummaryPage(userId, cursor, size,
+        (after, window) -> posts.findSummarySavedPage(userId, after.createdAt(), after.id(), window));
+  }
+
+  // one extra row tells us whether there is a next page
+  private CursorPageDto<PostDetailDto> markedPage(UUID userId, String cursor, int size,
+      BiFunction<KeysetCursor, Pageable, List<PostRepository.MarkedPost>> query) {
+    return KeysetCursor.page(
+        query.apply(KeysetCursor.decode(cursor), PageRequest.of(0, size + 1)),
+        size,
+        m -> new KeysetCursor(m.getMarkedAt(), m.getPost().getId()),
+        rows -> assembler.toDetails(rows.stream().map(PostRepository.MarkedPost::getPost).toList(), userId));
+  }
+
+  private CursorPageDto<PostSummaryDto> markedSummaryPage(UUID userId, String cursor, int size,
+      BiFunction<KeysetCursor, Pageable, List<PostRepository.MarkedSummaryRef>> query) {
+    return KeysetCursor.page(
+        query.apply(KeysetCursor.decode(cursor), PageRequest.of(0, size + 1)),
+        size,
+        r -> new KeysetCursor(r.getMarkedAt(), r.getId()),
+        rows -> assembler.toSummaries(rows, userId));
+  }
+
+  // ---- list cards (view=summary): same lists without full bodies / media
+
+  public List<PostSummaryDto> getPostSummariesByAuthor(UUID userId, UUID viewerId) {
+    return assembler.toSummaries(posts.findSummariesByAuthor(userId), viewerId);
+  }
+
+  public List<PostSummaryDto> getLikedPostSummariesForUser(UUID userId) {
+    return assembler.toSummaries(posts.findSummariesLikedByUser(userId), userId);
+  }
+
+  public List<PostSummaryDto> getSavedPostSummariesForUser(UUID userId) {
+    return assembler.toSummaries(posts.findSummariesSavedByUser(userId), userId);
   }
 }
@@ -2,18 +2,17 @@ package blog.service.posts;
 
 import blog.enums.NotificationType;
 import blog.models.Post;
-import blog.models.SavedPost;
 import blog.models.User;
 import blog.repository.PostRepository;
 import blog.repository.SavedPostRepository;
 import blog.repository.UserRepository;
+import blog.service.EngagementIndex;
 import blog.service.NotificationService;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import lombok.RequiredArgsConstructor;
-import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -25,6 +24,7 @@ public class PostSaveService {
   private final PostRepository posts;
   private final SavedPostRepository savedPosts;
   private final NotificationService notificationService;
+  private final EngagementIndex engagement;
 
 
   private User requireUser(String username) {
@@ -33,29 +33,26 @@ public class PostSaveService {
   }
 
   private Post requirePost(UUID postId) {
-    return posts.findById(postId)
+    return posts.findReadOnlyById(postId)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
   }
 
+  // one statement inserts the save and bumps saves_count; a repeated click changes nothing
   public void savePost(String username, UUID postId) {
     User user = requireUser(username);
     Post post = requirePost(postId);
       if ("hidden".equalsIgnoreCase(post.getStatus())) {
       throw new ResponseStatusException(HttpStatus.GONE, "Post is hidden");
     }
-    Optional<SavedPost> existing = savedPosts.findByUserIdAndPostId(user.getId(), postId);
-    if (existing.isPresent()) return;
-
-    SavedPost savedPost = new SavedPost();
-    savedPost.setUserId(user.getId());
-    savedPost.setPostId(postId);
-    savedPosts.save(savedPost);
+    if (savedPosts.addSave(user.getId(), postId).isEmpty()) return;
+    engagement.onSaved(user.getId(), postId, true);
 
     notificationService.notify(post.getAuthor(), user, NotificationType.POST_SAVED, post,null);
   }
 
   public void unsavePost(String username, UUID postId) {
     User user = requireUser(username);
-    savedPosts.findByUserIdAndPostId(user.getId(), postId).ifPresent(savedPosts::delete);
+    if (savedPosts.removeSave(user.getId(), postId).isPresent())
+      engagement.onSaved(user.getId(), postId, false);
   }
 }
@@ -2,11 +2,10 @@ package blog.service.users;
 
 import blog.dto.UserProfileDto;
 import blog.mapper.UserProfileMapper;
-import blog.models.Media;
 import blog.models.User;
-import blog.repository.MediaRepository;
 import blog.repository.SubscriptionRepository;
 import blog.repository.UserRepository;
+import blog.service.MediaCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -24,7 +23,7 @@ import java.util.UUID;
 public class UserProfileService {
 
     private final UserRepository users;
-    private final MediaRepository mediaRepo;
+    private final MediaCache mediaCache;
     private final SubscriptionRepository subscriptions;
     private final UserProfileMapper userProfileMapper;
     private final CurrentUserService currentUserService;
@@ -47,6 +46,20 @@ public class UserProfileService {
         return userProfileMapper.toProfileDto(target, isSubscribed);
     }
 
+    /**
+     * Same card as getProfileByUsername for a user already loaded, with the
+     * viewer already resolved: one query for the counts and the follow flag.
+     */
+    public UserProfileDto getProfileCard(User target, User me) {
+        boolean isOwner = me != null && me.getId().equals(target.getId());
+        boolean isAdmin = me != null && me.getRole() == User.Role.ADMIN;
+        SubscriptionRepository.SubscriptionStats stats =
+                subscriptions.findStats(target.getId(), me != null ? me.getId() : null);
+
+        boolean hideFollow = "banned".equalsIgnoreCase(target.getStatus()) && !isOwner && !isAdmin;
+        return userProfileMapper.toProfileDto(target, stats, !hideFollow && me != null && stats.getSubscribed());
+    }
+
     public List<UserProfileDto> searchProfiles(String q, Authentication auth) {
         User me = currentUserService.getCurrentUserOrNull(auth);
         UUID meId = (me != null) ? me.getId() : null;
@@ -66,7 +79,7 @@ public class UserProfileService {
 
         String avatarUrl = null;
         if (me.getAvatarMediaId() != null) {
-            avatarUrl = mediaRepo.findById(me.getAvatarMediaId()).map(Media::getUrl).orElse(null);
+            avatarUrl = mediaCache.url(me.getAvatarMediaId());
         }
 
         Map<String, Object> response = new HashMap<>();
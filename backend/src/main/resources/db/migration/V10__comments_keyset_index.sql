@@ -0,0 +1,7 @@
+-- =====================================================
+-- COMMENTS: keyset pages in either direction
+-- =====================================================
+-- Pages are read as (created_at, id) < / > (cursor) for newest / oldest first;
+-- the id tie-breaker keeps the order total and one index serves both directions.
+DROP INDEX idx_comments_post_created;
+CREATE INDEX idx_comments_post_created ON comments(post_id, created_at DESC, id DESC);
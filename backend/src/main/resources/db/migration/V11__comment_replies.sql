@@ -0,0 +1,15 @@
+-- =====================================================
+-- COMMENTS: threaded replies
+-- =====================================================
+-- parent_id NULL = top-level. depth is 0 for top-level comments; replies_count
+-- counts direct replies and is kept in step by PostCommentService.
+-- posts.comments_count keeps counting every comment, replies included.
+ALTER TABLE comments
+  ADD COLUMN parent_id UUID REFERENCES comments(id) ON DELETE CASCADE,
+  ADD COLUMN depth SMALLINT NOT NULL DEFAULT 0,
+  ADD COLUMN replies_count INT NOT NULL DEFAULT 0;
+
+-- top-level page of a post, either direction
+CREATE INDEX idx_comments_post_top ON comments(post_id, created_at DESC, id DESC) WHERE parent_id IS NULL;
+-- replies of one comment, oldest first
+CREATE INDEX idx_comments_parent_created ON comments(parent_id, created_at, id) WHERE parent_id IS NOT NULL;
@@ -0,0 +1,46 @@
+-- =====================================================
+-- NOTIFICATION OUTBOX
+-- =====================================================
+-- Like / save / comment / follow / new-post events are written here in the
+-- transaction that caused them and turned into notifications after commit by
+-- a background worker pool. Rows are deleted once delivered. Every event of
+-- one target user carries the same shard, and one worker owns a shard, so a
+-- user's notifications are created in event order.
+CREATE TABLE notification_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    target_user_id UUID NOT NULL,
+    actor_id UUID NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    post_id UUID,
+    comment_id UUID,
+    shard SMALLINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    attempts INT NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    last_error TEXT,
+
+    -- an event whose user, post or comment is gone has nothing left to notify about
+    CONSTRAINT fk_notification_outbox_target
+      FOREIGN KEY (target_user_id)
+      REFERENCES users(id)
+      ON DELETE CASCADE,
+
+    CONSTRAINT fk_notification_outbox_actor
+      FOREIGN KEY (actor_id)
+      REFERENCES users(id)
+      ON DELETE CASCADE,
+
+    CONSTRAINT fk_notification_outbox_post
+      FOREIGN KEY (post_id)
+      REFERENCES posts(id)
+      ON DELETE CASCADE,
+
+    CONSTRAINT fk_notification_outbox_comment
+      FOREIGN KEY (comment_id)
+      REFERENCES comments(id)
+      ON DELETE CASCADE
+);
+
+CREATE INDEX idx_notification_outbox_shard ON notification_outbox(shard, id);
+-- "does this user have an earlier event waiting for a retry?"
+CREATE INDEX idx_notification_outbox_target ON notification_outbox(target_user_id, id);
@@ -0,0 +1,31 @@
+-- =====================================================
+-- NOTIFICATION FAN-OUT: FOLLOWING_POSTED in chunks
+-- =====================================================
+-- A new post records one job here instead of one outbox event per follower.
+-- FollowerFanout walks the author's subscribers in subscriber_id order, a
+-- chunk per transaction, remembering where it stopped in after_subscriber.
+CREATE TABLE notification_fanout (
+    id BIGSERIAL PRIMARY KEY,
+    post_id UUID NOT NULL,
+    actor_id UUID NOT NULL,
+    after_subscriber UUID,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    attempts INT NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    last_error TEXT,
+
+    CONSTRAINT fk_notification_fanout_post
+      FOREIGN KEY (post_id)
+      REFERENCES posts(id)
+      ON DELETE CASCADE,
+
+    CONSTRAINT fk_notification_fanout_actor
+      FOREIGN KEY (actor_id)
+      REFERENCES users(id)
+      ON DELETE CASCADE
+);
+
+CREATE INDEX idx_notification_fanout_available ON notification_fanout(available_at, id);
+
+-- an author's subscribers in id order, resumable from any subscriber
+CREATE INDEX idx_subscriptions_target_subscriber ON subscriptions(subscribed_to_id, subscriber_id);
@@ -0,0 +1,7 @@
+-- =====================================================
+-- UNSEEN NOTIFICATIONS: per-user lookups
+-- =====================================================
+-- UnseenCounter loads and reconciles badge counts per user, and seen / unseen
+-- look rows up by (user, notification); both were sequential scans.
+CREATE INDEX IF NOT EXISTS idx_unseen_notifications_user
+  ON unseen_notifications(user_id, notification_id);
@@ -0,0 +1,8 @@
+-- =====================================================
+-- NOTIFICATIONS: keyset pages per user
+-- =====================================================
+-- Pages are read as (created_at, id) < (cursor) ORDER BY created_at DESC, id DESC.
+-- Follower fan-out writes whole chunks with the same created_at, so extend
+-- idx_notifications_user_created with the tie-breaker to keep a page one index range scan.
+DROP INDEX idx_notifications_user_created;
+CREATE INDEX idx_notifications_user_created ON notifications(user_id, created_at DESC, id DESC);
@@ -0,0 +1,42 @@
+-- =====================================================
+-- NOTIFICATIONS: typed actor and dedup key for upserts
+-- =====================================================
+-- Dedup used to look rows up by payload->>'actorId', which no index covers.
+ALTER TABLE notifications ADD COLUMN actor_id UUID;
+UPDATE notifications SET actor_id = (payload->>'actorId')::uuid;
+-- every notification has an actor; it goes with them like the events they caused
+DELETE FROM notifications WHERE actor_id IS NULL OR actor_id NOT IN (SELECT id FROM users);
+ALTER TABLE notifications ALTER COLUMN actor_id SET NOT NULL;
+ALTER TABLE notifications ADD CONSTRAINT fk_notifications_actor
+  FOREIGN KEY (actor_id) REFERENCES users(id) ON DELETE CASCADE;
+CREATE INDEX idx_notifications_actor ON notifications(actor_id);
+
+-- one notification per (target, type, post, actor) for the types that are bumped instead of repeated;
+-- older duplicates (and their unseen rows) go, the newest stays
+DELETE FROM notifications n
+USING notifications newer
+WHERE newer.user_id = n.user_id
+  AND newer.type = n.type
+  AND newer.post_id IS NOT DISTINCT FROM n.post_id
+  AND newer.actor_id = n.actor_id
+  AND (newer.created_at, newer.id) > (n.created_at, n.id)
+  AND n.type IN ('POST_LIKED', 'POST_SAVED', 'USER_FOLLOWED', 'FOLLOWING_POSTED');
+
+-- NULLS NOT DISTINCT: USER_FOLLOWED has no post
+CREATE UNIQUE INDEX uq_notifications_dedup
+  ON notifications(user_id, type, post_id, actor_id) NULLS NOT DISTINCT
+  WHERE type IN ('POST_LIKED', 'POST_SAVED', 'USER_FOLLOWED', 'FOLLOWING_POSTED');
+
+-- =====================================================
+-- UNSEEN NOTIFICATIONS: at most one row per notification
+-- =====================================================
+DELETE FROM unseen_notifications un
+USING unseen_notifications other
+WHERE other.user_id = un.user_id
+  AND other.notification_id = un.notification_id
+  AND other.id > un.id;
+
+-- replaces the plain (user_id, notification_id) index from V14
+DROP INDEX idx_unseen_notifications_user;
+ALTER TABLE unseen_notifications ADD CONSTRAINT uq_unseen_notifications_user_notification
+  UNIQUE (user_id, notification_id);
@@ -0,0 +1,12 @@
+-- =====================================================
+-- HOME TIMELINE: where a capped follow backfill stopped
+-- =====================================================
+-- A follow copies only the author's latest posts into home_timeline. When the
+-- author had more, (timeline_horizon_at, timeline_horizon_id) is the oldest
+-- post that was copied: the follower's inbox is complete down to the newest
+-- horizon among their subscriptions, and the feed reads the joined
+-- subscriptions query below it. NULL = the backfill took everything.
+ALTER TABLE subscriptions ADD COLUMN timeline_horizon_at TIMESTAMP;
+ALTER TABLE subscriptions ADD COLUMN timeline_horizon_id UUID;
+
+-- V4 copied every post of existing follows, so they have no horizon
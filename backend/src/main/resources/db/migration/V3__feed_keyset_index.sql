@@ -0,0 +1,7 @@
+-- =====================================================
+-- FEED KEYSET PAGINATION
+-- =====================================================
+-- Feed pages are read as (created_at, id) < (cursor) ORDER BY created_at DESC, id DESC.
+-- The id tiebreaker keeps the order total when several posts share a timestamp.
+CREATE INDEX idx_posts_user_created_id ON posts(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_posts_active_created_id ON posts(created_at DESC, id DESC) WHERE status = 'active';
@@ -0,0 +1,34 @@
+-- =====================================================
+-- HOME TIMELINE (fan-out-on-write inbox)
+-- =====================================================
+-- One row per (follower, post) written when the post is created, so reading
+-- a feed page is a range scan on (user_id, created_at, post_id).
+CREATE TABLE home_timeline (
+    user_id UUID NOT NULL,
+    post_id UUID NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+
+    PRIMARY KEY (user_id, post_id),
+
+    CONSTRAINT fk_home_timeline_user
+      FOREIGN KEY (user_id)
+      REFERENCES users(id)
+      ON DELETE CASCADE,
+
+    CONSTRAINT fk_home_timeline_post
+      FOREIGN KEY (post_id)
+      REFERENCES posts(id)
+      ON DELETE CASCADE
+);
+
+CREATE INDEX idx_home_timeline_user_created ON home_timeline(user_id, created_at DESC, post_id DESC);
+CREATE INDEX idx_home_timeline_post ON home_timeline(post_id);
+
+-- existing follows
+INSERT INTO home_timeline (user_id, post_id, created_at)
+SELECT s.subscriber_id, p.id, p.created_at
+FROM subscriptions s
+JOIN posts p ON p.user_id = s.subscribed_to_id
+WHERE p.status = 'active'
+  AND s.subscriber_id <> p.user_id
+ON CONFLICT DO NOTHING;
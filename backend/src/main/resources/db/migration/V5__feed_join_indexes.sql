@@ -0,0 +1,12 @@
+-- =====================================================
+-- FEED: subscriptions joined in SQL
+-- =====================================================
+-- Small follow sets: nested loop over the subscriber's follows, then a
+-- per-author range scan that is already in feed order.
+CREATE INDEX idx_posts_active_user_created_id ON posts(user_id, created_at DESC, id DESC) WHERE status = 'active';
+
+-- Large follow sets: walk idx_posts_active_created_id in feed order and probe
+-- the follow with the (subscriber_id, subscribed_to_id) unique index until LIMIT.
+
+-- Category filter probes post_categories by (category_id, post_id).
+CREATE INDEX idx_post_categories_category_post ON post_categories(category_id, post_id);
@@ -0,0 +1,18 @@
+-- =====================================================
+-- FEED: ranked sort modes served by the database
+-- =====================================================
+-- saves_count is kept in step by PostSaveService, like likes_count by PostLikeService.
+ALTER TABLE posts ADD COLUMN saves_count INT NOT NULL DEFAULT 0;
+
+UPDATE posts p
+SET saves_count = s.n
+FROM (SELECT post_id, COUNT(*) AS n FROM saved_posts GROUP BY post_id) s
+WHERE s.post_id = p.id;
+
+-- a NULL would make the (likes_count, created_at, id) keyset comparison drop the row
+UPDATE posts SET likes_count = 0 WHERE likes_count IS NULL;
+ALTER TABLE posts ALTER COLUMN likes_count SET NOT NULL;
+
+-- Large follow sets walk these in sort order and probe the follow until LIMIT.
+CREATE INDEX idx_posts_active_likes ON posts(likes_count DESC, created_at DESC, id DESC) WHERE status = 'active';
+CREATE INDEX idx_posts_active_saves ON posts(saves_count DESC, created_at DESC, id DESC) WHERE status = 'active';
@@ -0,0 +1,10 @@
+-- =====================================================
+-- POST COUNTERS: maintained by single-statement SQL toggles
+-- =====================================================
+-- The old read-modify-write paths could drift under concurrency; start from the truth.
+UPDATE posts p SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id);
+UPDATE posts p SET comments_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id);
+UPDATE posts p SET saves_count = (SELECT COUNT(*) FROM saved_posts s WHERE s.post_id = p.id);
+
+-- a NULL would swallow "comments_count + 1"
+ALTER TABLE posts ALTER COLUMN comments_count SET NOT NULL;
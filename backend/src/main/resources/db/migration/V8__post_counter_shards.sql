@@ -0,0 +1,20 @@
+-- =====================================================
+-- POST COUNTERS: striped deltas for hot posts
+-- =====================================================
+-- Likes/comments on a busy post add to one of N shard rows instead of all
+-- updating the same posts row; a periodic job folds the shards back into
+-- posts.likes_count / comments_count. A post's count is the posts column plus
+-- the sum of its shards.
+CREATE TABLE post_counter_shards (
+    post_id UUID NOT NULL,
+    shard SMALLINT NOT NULL,
+    likes_delta INT NOT NULL DEFAULT 0,
+    comments_delta INT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (post_id, shard),
+
+    CONSTRAINT fk_post_counter_shards_post
+      FOREIGN KEY (post_id)
+      REFERENCES posts(id)
+      ON DELETE CASCADE
+);
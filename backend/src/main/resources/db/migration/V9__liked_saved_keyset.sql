@@ -0,0 +1,13 @@
+-- =====================================================
+-- LIKED / SAVED LISTS: keyset pages in the order the viewer marked the posts
+-- =====================================================
+-- Pages are read as (created_at, post_id) < (cursor) ORDER BY created_at DESC, post_id DESC.
+-- Likes never recorded when they happened; existing rows get the migration time.
+ALTER TABLE likes ADD COLUMN created_at TIMESTAMP NOT NULL DEFAULT NOW();
+
+CREATE INDEX idx_likes_user_created ON likes(user_id, created_at DESC, post_id DESC);
+
+-- saved_posts already has idx_saved_posts_user_created (user_id, created_at DESC);
+-- extend it with the tie-breaker so a page is one index range scan
+DROP INDEX idx_saved_posts_user_created;
+CREATE INDEX idx_saved_posts_user_created ON saved_posts(user_id, created_at DESC, post_id DESC);
@@ -0,0 +1,129 @@
+package backend;
+
+import blog.BlogApplication;
+import blog.models.Post;
+import blog.repository.PostRepository;
+import blog.service.posts.PostCounters;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starting in counters.mode=buffered after a sharded run or a crash:
+ * recounted posts must not get leftover shard deltas folded on top, and
+ * marked posts are recounted from their rows.
+ *
+ * Needs the configured Postgres.
+ */
+@SpringBootTest(classes = BlogApplication.class, properties = {
+    "spring.jpa.show-sql=false",
+    "counters.mode=buffered",
+    "counters.fold-interval-ms=3600000"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BufferedCounterRecoveryTest {
+
+  @Autowired
+  private JdbcTemplate jdbc;
+  @Autowired
+  private PostCounters counters;
+  @Autowired
+  private PostRepository posts;
+  @Autowired
+  private TransactionTemplate tx;
+
+  private List<UUID> users;
+
+  @BeforeAll
+  void seed() {
+    cleanup();
+    jdbc.update("""
+        INSERT INTO users (name, username, email, password, age)
+        SELECT 'bc', 'bc_' || g, 'bc_' || g || '@bc.local', 'x', 30
+        FROM generate_series(1, 3) g
+        """);
+    users = jdbc.queryForList("SELECT id FROM users WHERE username LIKE 'bc\\_%' ORDER BY username", UUID.class);
+  }
+
+  @AfterAll
+  void cleanup() {
+    jdbc.update("DELETE FROM users WHERE username LIKE 'bc\\_%'");
+  }
+
+  @Test
+  void shardLeftoversAreDroppedNotFoldedOnTopOfTheRecount() {
+    UUID post = post();
+    likedByAll(post);
+    jdbc.update("INSERT INTO comments (user_id, post_id, text) VALUES (?, ?, 'bc')", users.get(0), post);
+    // as a sharded run leaves it: one like folded, two likes and the comment still in shards
+    jdbc.update("UPDATE posts SET likes_count = 1, comments_count = 0 WHERE id = ?", post);
+    jdbc.update("""
+        INSERT INTO post_counter_shards (post_id, shard, likes_delta, comments_delta)
+        VALUES (?, 0, 1, 1), (?, 3, 1, 0)
+        """, post, post);
+
+    counters.recover();
+    counters.fold();
+
+    assertCounts(post, 3, 1);
+    assertEquals(0, shardRows(post));
+    assertTrue(counters.pending(List.of(post)).isEmpty());
+  }
+
+  @Test
+  void postsMarkedByACrashedRunAreRecounted() {
+    UUID post = post();
+    likedByAll(post);
+    // the buffered deltas died with the process; only the marker survived
+    jdbc.update("INSERT INTO post_counter_shards (post_id, shard) VALUES (?, -1)", post);
+
+    counters.recover();
+
+    assertCounts(post, 3, 0);
+    assertEquals(1, shardRows(post)); // kept until a clean shutdown
+  }
+
+  @Test
+  void bufferedWritesMarkTheirPostAndFoldRecountsIt() {
+    UUID post = post();
+    tx.executeWithoutResult(status -> {
+      Post p = posts.findReadOnlyById(post).orElseThrow();
+      users.forEach(u -> counters.like(u, p));
+      counters.unlike(users.get(0), p);
+    });
+    assertEquals(1, shardRows(post));
+
+    counters.fold();
+
+    assertCounts(post, 2, 0);
+  }
+
+  private UUID post() {
+    return jdbc.queryForObject(
+        "INSERT INTO posts (user_id, title, body) VALUES (?, 'bc', 'bc') RETURNING id", UUID.class, users.get(0));
+  }
+
+  private void likedByAll(UUID post) {
+    users.forEach(u -> jdbc.update("INSERT INTO likes (user_id, post_id) VALUES (?, ?)", u, post));
+  }
+
+  private int shardRows(UUID post) {
+    return jdbc.queryForObject("SELECT COUNT(*)::int FROM post_counter_shards WHERE post_id = ?", Integer.class, post);
+  }
+
+  private void assertCounts(UUID post, int likes, int comments) {
+    assertEquals(likes, jdbc.queryForObject("SELECT likes_count FROM posts WHERE id = ?", Integer.class, post));
+    assertEquals(comments, jdbc.queryForObject("SELECT comments_count FROM posts WHERE id = ?", Integer.class, post));
+  }
+}
@@ -0,0 +1,203 @@
+package backend;
+
+import blog.BlogApplication;
+import blog.dto.CommentDto;
+import blog.dto.CommentThreadDto;
+import blog.dto.CursorPageDto;
+import blog.service.posts.PostCommentService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Threads show the oldest replies of each comment first and resume after
+ * them; deleting a comment takes its whole subtree, the subtree's
+ * notifications and its share of comments_count.
+ *
+ * Needs the configured Postgres.
+ */
+@SpringBootTest(classes = BlogApplication.class, properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CommentThreadTest {
+
+  private static final int REPLIES = 5;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+  @Autowired
+  private PostCommentService comments;
+  @Autowired
+  private TransactionTemplate tx;
+
+  private UUID author;
+  private UUID reader;
+
+  @BeforeAll
+  void seed() {
+    cleanup();
+    jdbc.update("""
+        INSERT INTO users (name, username, email, password, age)
+        VALUES ('ct', 'ct_author', 'ct_author@ct.local', 'x', 30),
+               ('ct', 'ct_reader', 'ct_reader@ct.local', 'x', 30)
+        """);
+    author = jdbc.queryForObject("SELECT id FROM users WHERE username = 'ct_author'", UUID.class);
+    reader = jdbc.queryForObject("SELECT id FROM users WHERE username = 'ct_reader'", UUID.class);
+  }
+
+  @AfterAll
+  void cleanup() {
+    jdbc.update("DELETE FROM users WHERE username LIKE 'ct\\_%'");
+  }
+
+  @Test
+  void previewsAreTheOldestRepliesAndTheCursorResumesAfterThem() {
+    UUID post = post();
+    UUID busy = comment(post, null, 0, 60);
+    UUID quiet = comment(post, null, 0, 59);
+    // inserted newest first, so neither insertion order nor id order matches age
+    for (int i = REPLIES; i >= 1; i--)
+      comment(post, busy, 1, 50 - i);
+    UUID only = comment(post, quiet, 1, 40);
+    recountReplies(post);
+
+    List<CommentThreadDto> threads = comments.getThreadPage(post, "oldest", null, 10, 2).items();
+    assertEquals(2, threads.size());
+
+    CommentThreadDto first = threads.get(0);
+    assertEquals(busy, first.comment().id());
+    assertEquals(ages(post, busy).subList(0, 2), ids(first.replies()));
+    assertNotNull(first.moreRepliesCursor());
+
+    CommentThreadDto second = threads.get(1);
+    assertEquals(List.of(only), ids(second.replies()));
+    assertNull(second.moreRepliesCursor());
+
+    CursorPageDto<CommentDto> rest = comments.getRepliesPage(post, busy, first.moreRepliesCursor(), 10);
+    assertEquals(ages(post, busy).subList(2, REPLIES), ids(rest.items()));
+    assertNull(rest.nextCursor());
+  }
+
+  @Test
+  void deletingACommentRemovesItsSubtreeNotificationsAndCount() {
+    UUID post = post();
+    UUID top = comment(post, null, 0, 30);
+    UUID reply = comment(post, top, 1, 29);
+    comment(post, top, 1, 28);
+    comment(post, reply, 2, 27);
+    UUID other = comment(post, null, 0, 26);
+    recountReplies(post);
+    jdbc.update("UPDATE posts SET comments_count = 5 WHERE id = ?", post);
+
+    // one unseen new-comment notification per comment
+    jdbc.update("""
+        WITH n AS (
+          INSERT INTO notifications (user_id, actor_id, post_id, type, payload)
+          SELECT ?, c.user_id, c.post_id, 'POST_COMMENTED',
+                 jsonb_build_object('actorId', c.user_id::text, 'postId', c.post_id::text, 'commentId', c.id::text)
+          FROM comments c WHERE c.post_id = ?
+          RETURNING id, user_id
+        )
+        INSERT INTO unseen_notifications (user_id, notification_id) SELECT user_id, id FROM n
+        """, author, post);
+
+    comments.deleteComment("ct_author", post, top);
+
+    assertEquals(List.of(other),
+        jdbc.queryForList("SELECT id FROM comments WHERE post_id = ?", UUID.class, post));
+    assertEquals(1, jdbc.queryForObject("SELECT comments_count FROM posts WHERE id = ?", Integer.class, post));
+    assertEquals(List.of(other.toString()), jdbc.queryForList(
+        "SELECT payload->>'commentId' FROM notifications WHERE post_id = ?", String.class, post));
+    assertEquals(1, jdbc.queryForObject("""
+        SELECT COUNT(*) FROM unseen_notifications un JOIN notifications n ON n.id = un.notification_id
+        WHERE n.post_id = ?
+        """, Integer.class, post));
+  }
+
+  @Test
+  void aReplyCommittingDuringTheDeleteIsCountedToo() throws Exception {
+    UUID post = post();
+    UUID top = comment(post, null, 0, 10);
+    jdbc.update("UPDATE posts SET comments_count = 1 WHERE id = ?", post);
+
+    CountDownLatch inserted = new CountDownLatch(1);
+    CountDownLatch commit = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      // a reply written the way addComment does, still uncommitted when the delete starts
+      Future<?> reply = pool.submit(() -> tx.executeWithoutResult(status -> {
+        jdbc.update("INSERT INTO comments (user_id, post_id, parent_id, depth, text) VALUES (?, ?, ?, 1, 'ct')",
+            reader, post, top);
+        jdbc.update("UPDATE posts SET comments_count = comments_count + 1 WHERE id = ?", post);
+        inserted.countDown();
+        await(commit);
+      }));
+      await(inserted);
+      Future<?> delete = pool.submit(() -> comments.deleteComment("ct_author", post, top));
+      Thread.sleep(300); // let the delete block on the reply
+      commit.countDown();
+      reply.get(10, TimeUnit.SECONDS);
+      delete.get(10, TimeUnit.SECONDS);
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(0, jdbc.queryForObject("SELECT COUNT(*)::int FROM comments WHERE post_id = ?", Integer.class, post));
+    assertEquals(0, jdbc.queryForObject("SELECT comments_count FROM posts WHERE id = ?", Integer.class, post));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private UUID post() {
+    return jdbc.queryForObject(
+        "INSERT INTO posts (user_id, title, body) VALUES (?, 'ct', 'ct') RETURNING id", UUID.class, author);
+  }
+
+  private UUID comment(UUID post, UUID parent, int depth, int minutesAgo) {
+    return jdbc.queryForObject("""
+        INSERT INTO comments (user_id, post_id, parent_id, depth, text, created_at)
+        VALUES (?, ?, ?, ?, 'ct', NOW() - ? * INTERVAL '1 minute')
+        RETURNING id
+        """, UUID.class, reader, post, parent, depth, minutesAgo);
+  }
+
+  private void recountReplies(UUID post) {
+    jdbc.update("""
+        UPDATE comments c SET replies_count = (SELECT COUNT(*) FROM comments r WHERE r.parent_id = c.id)
+        WHERE c.post_id = ?
+        """, post);
+  }
+
+  // direct replies of parent, oldest first
+  private List<UUID> ages(UUID post, UUID parent) {
+    return jdbc.queryForList(
+        "SELECT id FROM comments WHERE post_id = ? AND parent_id = ? ORDER BY created_at, id",
+        UUID.class, post, parent);
+  }
+
+  private static List<UUID> ids(List<CommentDto> dtos) {
+    return dtos.stream().map(CommentDto::id).toList();
+  }
+}
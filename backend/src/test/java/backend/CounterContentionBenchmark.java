@@ -0,0 +1,147 @@
+package backend;
+
+import blog.BlogApplication;
+import blog.models.Post;
+import blog.repository.PostRepository;
+import blog.service.posts.PostCounters;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Like/unlike storm on one hot post, once per counters.mode: posts.likes_count
+ * updated in place, deltas spread over post_counter_shards, deltas buffered
+ * in memory.
+ *
+ * Needs the configured Postgres; run with
+ *   ./mvnw test -Dtest=CounterContentionBenchmark -Dbenchmarks=true
+ */
+@SpringBootTest(classes = BlogApplication.class, properties = {
+    "spring.jpa.show-sql=false",
+    "counters.fold-interval-ms=3600000",
+    "spring.datasource.hikari.maximum-pool-size=40"
+})
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CounterContentionBenchmark {
+
+  private static final int[] THREADS = { 1, 8, 32 };
+  private static final String[] MODES = { "direct", "sharded", "buffered" };
+  private static final int USERS = 400;
+  private static final long WARMUP_MS = 1_000;
+  private static final long RUN_MS = 5_000;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+  @Autowired
+  private PostRepository posts;
+  @Autowired
+  private PostCounters counters;
+  @Autowired
+  private TransactionTemplate tx;
+
+  private UUID hotPost;
+  private List<UUID> users;
+
+  @BeforeAll
+  void seed() {
+    cleanup();
+    jdbc.update("""
+        INSERT INTO users (name, username, email, password, age)
+        SELECT 'bench', 'bench_liker_' || g, 'bench_liker_' || g || '@bench.local', 'x', 30
+        FROM generate_series(0, ?) g
+        """, USERS);
+    hotPost = jdbc.queryForObject("""
+        INSERT INTO posts (user_id, title, body)
+        SELECT id, 'bench', 'bench' FROM users WHERE username = 'bench_liker_0'
+        RETURNING id
+        """, UUID.class);
+    users = jdbc.queryForList(
+        "SELECT id FROM users WHERE username LIKE 'bench_liker_%' AND username <> 'bench_liker_0'", UUID.class);
+  }
+
+  @AfterAll
+  void cleanup() {
+    jdbc.update("DELETE FROM users WHERE username LIKE 'bench\\_%'");
+  }
+
+  @Test
+  void countersModes() throws Exception {
+    for (int threads : THREADS) {
+      StringBuilder line = new StringBuilder("threads=%3d".formatted(threads));
+      for (String mode : MODES) {
+        ReflectionTestUtils.setField(counters, "mode", mode);
+        double ops = throughput(threads);
+        counters.fold();
+        assertCountMatchesRows();
+        line.append("  %s=%7.0f ops/s".formatted(mode, ops));
+      }
+      System.out.println(line);
+    }
+    ReflectionTestUtils.setField(counters, "mode", "direct");
+  }
+
+  private double throughput(int threads) throws Exception {
+    run(threads, WARMUP_MS);
+    return run(threads, RUN_MS) * 1000.0 / RUN_MS;
+  }
+
+  // flips the user's like, as PostLikeService would, so every mode stays balanced
+  private void toggle(UUID userId) {
+    tx.executeWithoutResult(status -> {
+      Post post = posts.findReadOnlyById(hotPost).orElseThrow();
+      if (!counters.like(userId, post))
+        counters.unlike(userId, post);
+    });
+  }
+
+  // every thread owns a disjoint slice of users so nobody races on the same like row
+  private long run(int threads, long millis) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      long deadline = System.currentTimeMillis() + millis;
+      List<Future<Long>> done = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        List<UUID> mine = new ArrayList<>();
+        for (int i = t; i < users.size(); i += threads)
+          mine.add(users.get(i));
+        done.add(pool.submit(() -> {
+          long ops = 0;
+          while (System.currentTimeMillis() < deadline) {
+            toggle(mine.get((int) (ops % mine.size())));
+            ops++;
+          }
+          return ops;
+        }));
+      }
+      long total = 0;
+      for (Future<Long> f : done)
+        total += f.get();
+      return total;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private void assertCountMatchesRows() {
+    Integer stored = jdbc.queryForObject("SELECT likes_count FROM posts WHERE id = ?", Integer.class, hotPost);
+    Integer actual = jdbc.queryForObject("SELECT COUNT(*)::int FROM likes WHERE post_id = ?", Integer.class, hotPost);
+    assertEquals(actual, stored, "likes_count drifted from the likes table");
+  }
+}
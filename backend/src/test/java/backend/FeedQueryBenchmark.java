@@ -0,0 +1,140 @@
+package backend;
+
+import blog.BlogApplication;
+import blog.models.Post;
+import blog.repository.PostRepository;
+import blog.repository.SubscriptionRepository;
+import blog.service.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Feed page: followed ids shipped back as an IN list vs. subscriptions joined in SQL.
+ *
+ * Needs the configured Postgres; run with
+ *   ./mvnw test -Dtest=FeedQueryBenchmark -Dbenchmarks=true
+ */
+@SpringBootTest(classes = BlogApplication.class, properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FeedQueryBenchmark {
+
+  private static final int[] FOLLOWS = { 10, 1_000, 10_000 };
+  private static final int AUTHORS = 12_000;
+  private static final int POSTS_PER_AUTHOR = 3;
+  private static final int PAGE = 20;
+  private static final int WARMUP = 5;
+  private static final int RUNS = 25;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+  @Autowired
+  private PostRepository posts;
+  @Autowired
+  private SubscriptionRepository subs;
+  @Autowired
+  private TransactionTemplate tx;
+  @Autowired
+  private EntityManager em;
+
+  @BeforeAll
+  void seed() {
+    cleanup();
+    jdbc.update("""
+        INSERT INTO users (name, username, email, password, age)
+        SELECT 'bench', 'bench_author_' || g, 'bench_author_' || g || '@bench.local', 'x', 30
+        FROM generate_series(1, ?) g
+        """, AUTHORS);
+    jdbc.update("""
+        INSERT INTO posts (user_id, title, body, created_at)
+        SELECT u.id, 'bench', 'bench', NOW() - random() * INTERVAL '90 days'
+        FROM users u CROSS JOIN generate_series(1, ?)
+        WHERE u.username LIKE 'bench_author_%'
+        """, POSTS_PER_AUTHOR);
+    for (int n : FOLLOWS) {
+      jdbc.update("""
+          INSERT INTO users (name, username, email, password, age)
+          VALUES ('bench', 'bench_reader_' || ?, 'bench_reader_' || ? || '@bench.local', 'x', 30)
+          """, n, n);
+      jdbc.update("""
+          INSERT INTO subscriptions (subscriber_id, subscribed_to_id)
+          SELECT r.id, a.id
+          FROM users r,
+               (SELECT id FROM users WHERE username LIKE 'bench_author_%' ORDER BY random() LIMIT ?) a
+          WHERE r.username = 'bench_reader_' || ?
+          """, n, n);
+    }
+    jdbc.execute("ANALYZE users; ANALYZE posts; ANALYZE subscriptions");
+  }
+
+  @AfterAll
+  void cleanup() {
+    jdbc.update("DELETE FROM users WHERE username LIKE 'bench\\_%'");
+  }
+
+  @Test
+  void inListVersusJoin() {
+    KeysetCursor start = KeysetCursor.START;
+    PageRequest window = PageRequest.of(0, PAGE);
+
+    for (int n : FOLLOWS) {
+      UUID reader = jdbc.queryForObject(
+          "SELECT id FROM users WHERE username = 'bench_reader_' || ?", UUID.class, n);
+
+      Supplier<List<Post>> inList = () -> {
+        List<UUID> ids = subs.findSubscribedToIdsBySubscriberId(reader);
+        return posts.findFeedPageByAuthorsAndStatusExcludeMe(
+            ids, "active", reader, start.createdAt(), start.id(), window);
+      };
+      Supplier<List<Post>> join = () -> posts.findFeedPageForSubscriberExcludeMe(
+          reader, "active", start.createdAt(), start.id(), window);
+
+      assertEquals(ids(run(inList)), ids(run(join)), "both queries must return the same page");
+
+      double inListMs = medianMillis(inList);
+      double joinMs = medianMillis(join);
+      System.out.printf("follows=%6d  in-list=%8.2f ms  join=%8.2f ms%n", n, inListMs, joinMs);
+    }
+  }
+
+  private List<Post> run(Supplier<List<Post>> query) {
+    return tx.execute(status -> {
+      em.clear();
+      return query.get();
+    });
+  }
+
+  private double medianMillis(Supplier<List<Post>> query) {
+    for (int i = 0; i < WARMUP; i++)
+      run(query);
+
+    long[] samples = new long[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      long t0 = System.nanoTime();
+      run(query);
+      samples[i] = System.nanoTime() - t0;
+    }
+    Arrays.sort(samples);
+    return samples[RUNS / 2] / 1_000_000.0;
+  }
+
+  private static List<UUID> ids(List<Post> page) {
+    return page.stream().map(Post::getId).toList();
+  }
+}
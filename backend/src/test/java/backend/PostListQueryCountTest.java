@@ -0,0 +1,243 @@
+package backend;
+
+import blog.BlogApplication;
+import blog.models.User;
+import blog.repository.UserRepository;
+import blog.service.NotificationService;
+import blog.service.posts.PostCommentService;
+import blog.service.posts.PostFeedService;
+import blog.service.posts.PostPageService;
+import blog.service.posts.PostReadService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rendering a list page must cost the same number of statements whether the
+ * page holds one post or twenty, each from a different author.
+ *
+ * Needs the configured Postgres.
+ */
+@SpringBootTest(classes = BlogApplication.class, properties = {
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+    "feed.source=timeline"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostListQueryCountTest {
+
+  private static final int AUTHORS = 20;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+  @Autowired
+  private EntityManagerFactory emf;
+  @Autowired
+  private PostFeedService feed;
+  @Autowired
+  private PostReadService reads;
+  @Autowired
+  private PostCommentService comments;
+  @Autowired
+  private PostPageService pages;
+  @Autowired
+  private NotificationService notifications;
+  @Autowired
+  private UserRepository users;
+
+  private UUID busyReader; // likes and saves every seeded post
+  private UUID quietReader; // likes and saves one
+  private UUID threadPost; // one comment from every author, each answered by every author
+
+  @BeforeAll
+  void seed() {
+    cleanup();
+    jdbc.update("""
+        INSERT INTO users (name, username, email, password, age)
+        SELECT 'qc', 'qc_' || g, 'qc_' || g || '@qc.local', 'x', 30
+        FROM generate_series(1, ?) g
+        """, AUTHORS);
+    jdbc.update("""
+        INSERT INTO users (name, username, email, password, age)
+        VALUES ('qc', 'qc_busy', 'qc_busy@qc.local', 'x', 30),
+               ('qc', 'qc_quiet', 'qc_quiet@qc.local', 'x', 30)
+        """);
+    jdbc.update("""
+        INSERT INTO posts (user_id, title, body, created_at)
+        SELECT id, 'qc', 'qc', NOW() - random() * INTERVAL '1 day'
+        FROM users WHERE username ~ '^qc_[0-9]+$'
+        """);
+    jdbc.update("""
+        INSERT INTO post_categories (post_id, category_id)
+        SELECT p.id, (SELECT id FROM categories ORDER BY slug LIMIT 1)
+        FROM posts p JOIN users u ON u.id = p.user_id
+        WHERE u.username LIKE 'qc\\_%'
+        """);
+    jdbc.update("""
+        INSERT INTO subscriptions (subscriber_id, subscribed_to_id)
+        SELECT r.id, a.id FROM users r, users a
+        WHERE r.username IN ('qc_busy', 'qc_quiet') AND a.username ~ '^qc_[0-9]+$'
+        """);
+    jdbc.update("""
+        INSERT INTO home_timeline (user_id, post_id, created_at)
+        SELECT s.subscriber_id, p.id, p.created_at
+        FROM subscriptions s JOIN posts p ON p.user_id = s.subscribed_to_id
+        JOIN users r ON r.id = s.subscriber_id
+        WHERE r.username IN ('qc_busy', 'qc_quiet')
+        """);
+    for (String table : new String[] { "likes", "saved_posts" }) {
+      jdbc.update("""
+          INSERT INTO %s (user_id, post_id)
+          SELECT r.id, p.id FROM users r, posts p JOIN users a ON a.id = p.user_id
+          WHERE (r.username = 'qc_busy' AND a.username ~ '^qc_[0-9]+$')
+             OR (r.username = 'qc_quiet' AND a.username = 'qc_1')
+          """.formatted(table));
+    }
+
+    // every author comments once on qc_1's post
+    jdbc.update("""
+        INSERT INTO comments (user_id, post_id, text, created_at)
+        SELECT a.id, p.id, 'qc', NOW() - random() * INTERVAL '1 day'
+        FROM users a, posts p JOIN users o ON o.id = p.user_id
+        WHERE a.username ~ '^qc_[0-9]+$' AND o.username = 'qc_1'
+        """);
+    // ... and replies to every one of those comments
+    jdbc.update("""
+        INSERT INTO comments (user_id, post_id, parent_id, depth, text, created_at)
+        SELECT a.id, c.post_id, c.id, 1, 'qc reply', c.created_at + random() * INTERVAL '1 hour'
+        FROM users a, comments c JOIN users o ON o.id = c.user_id
+        WHERE a.username ~ '^qc_[0-9]+$' AND o.username ~ '^qc_[0-9]+$' AND c.parent_id IS NULL
+        """);
+    jdbc.update("""
+        UPDATE comments c SET replies_count = (SELECT COUNT(*) FROM comments r WHERE r.parent_id = c.id)
+        WHERE c.parent_id IS NULL AND c.text = 'qc'
+        """);
+    threadPost = jdbc.queryForObject(
+        "SELECT p.id FROM posts p JOIN users u ON u.id = p.user_id WHERE u.username = 'qc_1'", UUID.class);
+
+    busyReader = jdbc.queryForObject("SELECT id FROM users WHERE username = 'qc_busy'", UUID.class);
+    quietReader = jdbc.queryForObject("SELECT id FROM users WHERE username = 'qc_quiet'", UUID.class);
+  }
+
+  @AfterAll
+  void cleanup() {
+    jdbc.update("DELETE FROM users WHERE username LIKE 'qc\\_%'");
+  }
+
+  @Test
+  void feedPagesUseConstantStatements() {
+    for (String sort : new String[] { "new", "likes", "saved" }) {
+      feed.getFeedPage("qc_busy", null, sort, null, 1); // warm caches
+
+      long one = statements(() -> feed.getFeedPage("qc_busy", null, sort, null, 1));
+      long full = statements(() -> feed.getFeedPage("qc_busy", null, sort, null, AUTHORS));
+      assertEquals(one, full, "sort=" + sort);
+
+      long oneCard = statements(() -> feed.getFeedSummaryPage("qc_busy", null, sort, null, 1));
+      long fullCards = statements(() -> feed.getFeedSummaryPage("qc_busy", null, sort, null, AUTHORS));
+      assertEquals(oneCard, fullCards, "view=summary sort=" + sort);
+    }
+  }
+
+  @Test
+  void likedAndSavedListsUseConstantStatements() {
+    reads.getLikedPostsForUser(quietReader); // warm caches
+
+    assertEquals(
+        statements(() -> reads.getLikedPostsForUser(quietReader)),
+        statements(() -> reads.getLikedPostsForUser(busyReader)));
+    assertEquals(
+        statements(() -> reads.getSavedPostsForUser(quietReader)),
+        statements(() -> reads.getSavedPostsForUser(busyReader)));
+  }
+
+  @Test
+  void commentPagesUseConstantStatements() {
+    for (String order : new String[] { "newest", "oldest" }) {
+      comments.getCommentsPage(threadPost, order, null, 1); // warm caches
+
+      assertEquals(
+          statements(() -> comments.getCommentsPage(threadPost, order, null, 1)),
+          statements(() -> comments.getCommentsPage(threadPost, order, null, AUTHORS)),
+          "order=" + order);
+    }
+  }
+
+  @Test
+  void threadPagesUseConstantStatements() {
+    for (String order : new String[] { "newest", "oldest" }) {
+      comments.getThreadPage(threadPost, order, null, 1, 3); // warm caches
+
+      assertEquals(
+          statements(() -> comments.getThreadPage(threadPost, order, null, 1, 3)),
+          statements(() -> comments.getThreadPage(threadPost, order, null, AUTHORS, 3)),
+          "order=" + order);
+    }
+  }
+
+  @Test
+  void postPageUsesConstantStatements() {
+    // one answered comment against threadPost's twenty
+    UUID quietPost = jdbc.queryForObject(
+        "SELECT p.id FROM posts p JOIN users u ON u.id = p.user_id WHERE u.username = 'qc_2'", UUID.class);
+    jdbc.update("""
+        WITH top AS (
+          INSERT INTO comments (user_id, post_id, text, replies_count)
+          SELECT user_id, id, 'qc', 1 FROM posts WHERE id = ?
+          RETURNING id, user_id, post_id
+        )
+        INSERT INTO comments (user_id, post_id, parent_id, depth, text)
+        SELECT user_id, post_id, id, 1, 'qc reply' FROM top
+        """, quietPost);
+    pages.getPage(quietPost, null); // warm caches
+    pages.getPage(threadPost, null);
+
+    assertEquals(
+        statements(() -> pages.getPage(quietPost, null)),
+        statements(() -> pages.getPage(threadPost, null)));
+  }
+
+  @Test
+  void notificationPagesUseConstantStatements() {
+    // a new-post notification for every seeded post, every other one still unseen
+    jdbc.update("""
+        INSERT INTO notifications (user_id, actor_id, post_id, type, payload, created_at)
+        SELECT ?, a.id, p.id, 'FOLLOWING_POSTED',
+               jsonb_build_object('actorUsername', a.username, 'actorId', a.id::text, 'postId', p.id::text),
+               p.created_at
+        FROM posts p JOIN users a ON a.id = p.user_id
+        WHERE a.username ~ '^qc_[0-9]+$'
+        """, busyReader);
+    jdbc.update("""
+        INSERT INTO unseen_notifications (user_id, notification_id)
+        SELECT user_id, id
+        FROM (SELECT user_id, id, row_number() OVER (ORDER BY id) AS rn FROM notifications WHERE user_id = ?) n
+        WHERE rn % 2 = 0
+        """, busyReader);
+    User me = users.findById(busyReader).orElseThrow();
+
+    assertEquals(
+        statements(() -> notifications.getPage(me, null, 1)),
+        statements(() -> notifications.getPage(me, null, AUTHORS)));
+  }
+
+  private long statements(Supplier<?> call) {
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.clear();
+    call.get();
+    return stats.getPrepareStatementCount();
+  }
+}
@@ -0,0 +1,116 @@
+package backend;
+
+import blog.BlogApplication;
+import blog.dto.CursorPageDto;
+import blog.dto.PostDetailDto;
+import blog.dto.PostSummaryDto;
+import blog.models.User;
+import blog.repository.UserRepository;
+import blog.service.SubscriptionService;
+import blog.service.posts.PostFeedService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Following an author with a longer history than the timeline backfill:
+ * paging the NEW feed past the backfilled posts must list the same posts as
+ * the joined sort modes, in order and without repeats.
+ *
+ * Needs the configured Postgres.
+ */
+@SpringBootTest(classes = BlogApplication.class, properties = {
+    "spring.jpa.show-sql=false",
+    "feed.source=timeline"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TimelineBackfillTest {
+
+  private static final int PROLIFIC_POSTS = 230;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+  @Autowired
+  private SubscriptionService subscriptions;
+  @Autowired
+  private PostFeedService feed;
+  @Autowired
+  private UserRepository users;
+
+  @BeforeAll
+  void seed() {
+    cleanup();
+    jdbc.update("""
+        INSERT INTO users (name, username, email, password, age)
+        VALUES ('tb', 'tb_reader', 'tb_reader@tb.local', 'x', 30),
+               ('tb', 'tb_prolific', 'tb_prolific@tb.local', 'x', 30),
+               ('tb', 'tb_quiet', 'tb_quiet@tb.local', 'x', 30)
+        """);
+    // one post an hour, newest first
+    jdbc.update("""
+        INSERT INTO posts (user_id, title, body, created_at)
+        SELECT u.id, 'tb', 'tb', NOW() - g * INTERVAL '1 hour'
+        FROM users u, generate_series(1, ?) g
+        WHERE u.username = 'tb_prolific'
+        """, PROLIFIC_POSTS);
+    // all backfilled, but one of them sits below the prolific author's horizon
+    jdbc.update("""
+        INSERT INTO posts (user_id, title, body, created_at)
+        SELECT u.id, 'tb', 'tb', NOW() - g * INTERVAL '1 hour' - INTERVAL '30 minutes'
+        FROM users u, (VALUES (3), (210)) v(g)
+        WHERE u.username = 'tb_quiet'
+        """);
+
+    User reader = users.findByUsername("tb_reader").orElseThrow();
+    subscriptions.subscribe(users.findByUsername("tb_quiet").orElseThrow().getId(), reader);
+    subscriptions.subscribe(users.findByUsername("tb_prolific").orElseThrow().getId(), reader);
+  }
+
+  @AfterAll
+  void cleanup() {
+    jdbc.update("DELETE FROM users WHERE username LIKE 'tb\\_%'");
+  }
+
+  @Test
+  void newPagesPastTheBackfillMatchTheJoinedFeed() {
+    // nothing was liked or saved, so SAVED is also newest first
+    List<UUID> joined = pages("saved");
+    assertEquals(PROLIFIC_POSTS + 2, joined.size());
+
+    assertEquals(joined, pages("new"));
+    assertEquals(joined, summaryPages("new"));
+    assertEquals(joined, feed.getFeedForUser("tb_reader", null, "new").stream().map(PostDetailDto::id).toList());
+  }
+
+  private List<UUID> pages(String sort) {
+    List<UUID> ids = new ArrayList<>();
+    String cursor = null;
+    do {
+      CursorPageDto<PostDetailDto> page = feed.getFeedPage("tb_reader", null, sort, cursor, 50);
+      page.items().forEach(p -> ids.add(p.id()));
+      cursor = page.nextCursor();
+    } while (cursor != null);
+    return ids;
+  }
+
+  private List<UUID> summaryPages(String sort) {
+    List<UUID> ids = new ArrayList<>();
+    String cursor = null;
+    do {
+      CursorPageDto<PostSummaryDto> page = feed.getFeedSummaryPage("tb_reader", null, sort, cursor, 50);
+      page.items().forEach(p -> ids.add(p.id()));
+      cursor = page.nextCursor();
+    } while (cursor != null);
+    return ids;
+  }
+}